@@ -0,0 +1,50 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseBenchmark {
+
+    @Param({"2", "6", "50"})
+    int recommendationCount;
+
+    private ObjectWriter writer;
+    private ApiResponse<RoadmapDTO> roadmapResponse;
+    private ApiResponse<SurveyDTO> surveyResponse;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        writer = objectMapper.writer();
+
+        RoadmapDTO roadmap = BenchmarkFixtures.roadmapService()
+                .convertToDTO(BenchmarkFixtures.roadmap(recommendationCount));
+        roadmapResponse = ApiResponse.success("Путеводитель успешно сформирован", roadmap);
+
+        SurveyDTO survey = new SurveyService(null, null, null).convertToDTO(BenchmarkFixtures.SurveyShape.FULL.survey());
+        surveyResponse = ApiResponse.success("Найден черновик анкеты", survey);
+    }
+
+    @Benchmark
+    public byte[] serializeRoadmapResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(roadmapResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeSurveyResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(surveyResponse);
+    }
+}
@@ -0,0 +1,132 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.RecommendationTemplate;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import com.utmn.fms.roadmap.rules.RuleTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общие данные для бенчмарков. Сервисы создаются без Spring-контекста и репозиториев:
+ * измеряемые методы не обращаются к БД.
+ */
+public final class BenchmarkFixtures {
+
+    static final LocalDate ENTRY_DATE = LocalDate.of(2025, 3, 1);
+
+    /**
+     * Варианты анкеты, дающие разное число рекомендаций.
+     */
+    public enum SurveyShape {
+        // учеба, все документы есть, 90 дней — 2 рекомендации
+        MINIMAL("учеба", 90, true, true),
+        // работа, нет медосмотра — 4 рекомендации
+        TYPICAL("работа", 90, true, false),
+        // работа, нет документов, срок больше 90 дней — 6 рекомендаций
+        FULL("Трудоустройство", 180, false, false);
+
+        private final String purposeOfStay;
+        private final int durationOfStay;
+        private final boolean hasFingerprints;
+        private final boolean hasMedicalExam;
+
+        SurveyShape(String purposeOfStay, int durationOfStay, boolean hasFingerprints, boolean hasMedicalExam) {
+            this.purposeOfStay = purposeOfStay;
+            this.durationOfStay = durationOfStay;
+            this.hasFingerprints = hasFingerprints;
+            this.hasMedicalExam = hasMedicalExam;
+        }
+
+        Survey survey() {
+            return Survey.builder()
+                    .id(1L)
+                    .fullName("Иванов Иван Иванович")
+                    .citizenship("Тестландия")
+                    .entryDate(ENTRY_DATE)
+                    .purposeOfStay(purposeOfStay)
+                    .durationOfStay(durationOfStay)
+                    .hasFingerprints(hasFingerprints)
+                    .hasMedicalExam(hasMedicalExam)
+                    .isDraft(false)
+                    .isValid(true)
+                    .version(2)
+                    .createdAt(LocalDateTime.of(2025, 3, 2, 10, 0))
+                    .updatedAt(LocalDateTime.of(2025, 3, 2, 10, 0))
+                    .build();
+        }
+    }
+
+    private BenchmarkFixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        // та же конфигурация, что и у ObjectMapper в Spring Boot (даты в ISO-формате)
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    static RecommendationRuleEngine ruleEngine() {
+        return new RecommendationRuleEngine(objectMapper(),
+                new ClassPathResource("rules/recommendation-rules.json"),
+                new ClassPathResource("rules/production-calendar.json"),
+                event -> { });
+    }
+
+    /**
+     * Справочник шаблонов, заполненный текстами правил без обращения к БД.
+     */
+    static RecommendationTemplateService templateService(RecommendationRuleEngine ruleEngine) {
+        RecommendationTemplateService templateService = new RecommendationTemplateService(null, ruleEngine, null);
+        long id = 1;
+        for (RuleTemplate template : ruleEngine.getRuleSet().templates()) {
+            templateService.cache(RecommendationTemplate.builder()
+                    .id(id++)
+                    .ruleId(template.ruleId())
+                    .locale(template.locale())
+                    .title(template.title())
+                    .description(template.description())
+                    .contentHash(template.key())
+                    .build());
+        }
+        return templateService;
+    }
+
+    static RoadmapService roadmapService() {
+        RecommendationRuleEngine ruleEngine = ruleEngine();
+        return new RoadmapService(null, null, ruleEngine, templateService(ruleEngine), event -> { }, null, null, null);
+    }
+
+    /**
+     * Сохраненный путеводитель с заданным числом рекомендаций; тексты повторяют реальные правила.
+     */
+    static Roadmap roadmap(int recommendationCount) {
+        Roadmap template = roadmapService().createRoadmap(SurveyShape.FULL.survey());
+        List<Recommendation> source = template.getRecommendations();
+
+        Roadmap roadmap = new Roadmap();
+        roadmap.setId(1L);
+        roadmap.setCreatedDate(ENTRY_DATE);
+        List<Recommendation> recommendations = new ArrayList<>(recommendationCount);
+        for (int i = 0; i < recommendationCount; i++) {
+            Recommendation rec = source.get(i % source.size());
+            recommendations.add(Recommendation.builder()
+                    .id((long) i + 1)
+                    .roadmap(roadmap)
+                    .templateId(rec.getTemplateId())
+                    .parameters(rec.getParameters())
+                    .executionDate(rec.getExecutionDate().plusDays(i))
+                    .displayOrder(i + 1)
+                    .build());
+        }
+        roadmap.setRecommendations(recommendations);
+        return roadmap;
+    }
+}
@@ -0,0 +1,40 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportServiceBenchmark {
+
+    @Param({"2", "6", "50"})
+    int recommendationCount;
+
+    private ExportService exportService;
+    private RoadmapDTO roadmap;
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    @Setup
+    public void setUp() {
+        exportService = new ExportService();
+        roadmap = BenchmarkFixtures.roadmapService().convertToDTO(BenchmarkFixtures.roadmap(recommendationCount));
+    }
+
+    @Benchmark
+    public byte[] exportToHtml() {
+        return exportService.exportToHtml(roadmap);
+    }
+
+    @Benchmark
+    public void writeHtmlToStream() throws IOException {
+        exportService.writeHtml(roadmap, sink);
+    }
+}
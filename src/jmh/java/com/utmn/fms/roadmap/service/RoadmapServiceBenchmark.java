@@ -0,0 +1,68 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import com.utmn.fms.roadmap.rules.RuleResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoadmapServiceBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class GenerationState {
+
+        @Param({"MINIMAL", "TYPICAL", "FULL"})
+        BenchmarkFixtures.SurveyShape shape;
+
+        RecommendationRuleEngine ruleEngine;
+        RoadmapService roadmapService;
+        Survey survey;
+
+        @Setup
+        public void setUp() {
+            ruleEngine = BenchmarkFixtures.ruleEngine();
+            roadmapService = BenchmarkFixtures.roadmapService();
+            survey = shape.survey();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ConversionState {
+
+        @Param({"2", "6", "50"})
+        int recommendationCount;
+
+        RoadmapService roadmapService;
+        Roadmap roadmap;
+
+        @Setup
+        public void setUp() {
+            roadmapService = BenchmarkFixtures.roadmapService();
+            roadmap = BenchmarkFixtures.roadmap(recommendationCount);
+        }
+    }
+
+    @Benchmark
+    public List<RuleResult> evaluateRules(GenerationState state) {
+        return state.ruleEngine.evaluate(state.survey);
+    }
+
+    @Benchmark
+    public Roadmap generateRecommendations(GenerationState state) {
+        return state.roadmapService.createRoadmap(state.survey);
+    }
+
+    @Benchmark
+    public RoadmapDTO convertToDTO(ConversionState state) {
+        return state.roadmapService.convertToDTO(state.roadmap);
+    }
+}
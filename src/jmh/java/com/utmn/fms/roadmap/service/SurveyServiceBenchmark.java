@@ -0,0 +1,40 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SurveyServiceBenchmark {
+
+    @Param({"MINIMAL", "TYPICAL", "FULL"})
+    BenchmarkFixtures.SurveyShape shape;
+
+    private SurveyService surveyService;
+    private Survey survey;
+    private SurveyDTO surveyDTO;
+
+    @Setup
+    public void setUp() {
+        surveyService = new SurveyService(null, null, null);
+        survey = shape.survey();
+        surveyDTO = surveyService.convertToDTO(survey);
+    }
+
+    @Benchmark
+    public SurveyDTO convertToDTO() {
+        return surveyService.convertToDTO(survey);
+    }
+
+    @Benchmark
+    public Survey convertToEntity() {
+        return surveyService.convertToEntity(surveyDTO);
+    }
+}
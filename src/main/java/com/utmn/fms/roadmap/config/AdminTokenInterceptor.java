@@ -0,0 +1,58 @@
+package com.utmn.fms.roadmap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.dto.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Служебный API ({@value #PATTERN}) — выгрузки, импорт и сводки по всем заявителям. Запрос пропускается
+ * только с заголовком {@value #HEADER}, совпадающим с {@code roadmap.admin.token}; пока токен
+ * не задан, служебный API закрыт.
+ * <p>
+ * Проверка подключена как interceptor Spring MVC (см. {@link WebConfig}): путь сопоставляется тем же
+ * разбором, что и у контроллеров, поэтому закодированные символы и {@code ;}-параметры в пути ее не обходят.
+ */
+@Component
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String PATH = "/api/admin/";
+    public static final String PATTERN = PATH + "**";
+    public static final String HEADER = "X-Admin-Token";
+
+    private final byte[] token;
+    private final ObjectMapper objectMapper;
+
+    public AdminTokenInterceptor(@Value("${roadmap.admin.token:}") String token, ObjectMapper objectMapper) {
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        String presented = request.getHeader(HEADER);
+        // сравнение за постоянное время: по времени ответа токен не подобрать
+        if (token.length > 0 && presented != null
+                && MessageDigest.isEqual(token, presented.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        log.warn("Rejected admin request {} {}", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Требуется служебный токен"));
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.utmn.fms.roadmap.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Определяет заявителя запроса к API: из заголовка {@value #HEADER} (клиенты API) или из cookie
+ * {@value #COOKIE} (страницы приложения). Если ключа нет или он некорректен, выдается новый в cookie.
+ * Ключ передается контроллерам атрибутом запроса {@value #ATTRIBUTE}. Служебный API
+ * ({@link AdminTokenInterceptor#PATH}) не привязан к заявителю и здесь не обрабатывается.
+ */
+@Component
+public class ApplicantFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = "applicantId";
+    public static final String HEADER = "X-Applicant-Id";
+    public static final String COOKIE = "applicant_id";
+
+    private static final Duration COOKIE_MAX_AGE = Duration.ofDays(365);
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // путь раскодирован и без ;-параметров — так же, как его видит диспетчер Spring MVC
+        String path = UrlPathHelper.defaultInstance.getLookupPathForRequest(request);
+        return !path.startsWith("/api/") || path.startsWith(AdminTokenInterceptor.PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        UUID applicantId = parse(request.getHeader(HEADER));
+        if (applicantId == null) {
+            applicantId = parse(cookie(request));
+        }
+        if (applicantId == null) {
+            applicantId = UUID.randomUUID();
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, applicantId.toString())
+                    .path("/")
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .maxAge(COOKIE_MAX_AGE)
+                    .build()
+                    .toString());
+        }
+        request.setAttribute(ATTRIBUTE, applicantId);
+        chain.doFilter(request, response);
+    }
+
+    private static String cookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static UUID parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.DeadlineSummaryDTO;
+import com.utmn.fms.roadmap.dto.DueRecommendationDTO;
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
+import com.utmn.fms.roadmap.service.DeadlineDashboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardController {
+
+    private final DeadlineDashboardService dashboardService;
+
+    @GetMapping("/deadlines")
+    public ResponseEntity<ApiResponse<DeadlineSummaryDTO>> getDeadlineSummary(
+            @RequestParam(defaultValue = "14") int days) {
+
+        return ResponseEntity.ok(ApiResponse.success("Сводка ближайших сроков",
+                dashboardService.summarize(days)));
+    }
+
+    @GetMapping("/deadlines/items")
+    public ResponseEntity<ApiResponse<HistoryPageDTO<DueRecommendationDTO>>> getDueRecommendations(
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(required = false) String ruleId,
+            @RequestParam(required = false) String citizenship,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Рекомендации с ближайшими сроками",
+                    dashboardService.findDue(days, ruleId, citizenship, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Некорректный курсор списка"));
+        }
+    }
+
+    @PostMapping("/deadlines/rebuild")
+    public ResponseEntity<ApiResponse<Integer>> rebuildDeadlineCounters() {
+        log.info("Rebuilding deadline counters");
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success("Счетчики сроков пересчитаны", dashboardService.rebuild()));
+        } catch (Exception e) {
+            log.error("Error rebuilding deadline counters", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Ошибка при пересчете счетчиков сроков"));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.RoadmapBatchReportDTO;
+import com.utmn.fms.roadmap.dto.RoadmapBatchRequestDTO;
+import com.utmn.fms.roadmap.service.ExportCache;
+import com.utmn.fms.roadmap.service.RoadmapArchiveService;
+import com.utmn.fms.roadmap.service.RoadmapBatchService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Служебные операции над путеводителями всех заявителей; доступ проверяет
+ * {@link com.utmn.fms.roadmap.config.AdminTokenInterceptor}.
+ */
+@RestController
+@RequestMapping("/api/admin/roadmap")
+@RequiredArgsConstructor
+@Slf4j
+public class RoadmapAdminController {
+
+    private final RoadmapBatchService roadmapBatchService;
+    private final RoadmapArchiveService roadmapArchiveService;
+    private final ExportCache exportCache;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/generate/batch")
+    public ResponseEntity<ApiResponse<RoadmapBatchReportDTO>> requestRoadmapBatch(
+            @Valid @RequestBody RoadmapBatchRequestDTO request,
+            BindingResult bindingResult) {
+
+        log.info("Requesting batch roadmap generation");
+
+        if (bindingResult.hasErrors()) {
+            Map<String, String> errors = new HashMap<>();
+            bindingResult.getFieldErrors().forEach(error ->
+                    errors.put(error.getField(), error.getDefaultMessage())
+            );
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Ошибки валидации", errors));
+        }
+
+        try {
+            RoadmapBatchReportDTO report = roadmapBatchService.generate(request.getSurveyIds());
+            return ResponseEntity.ok(ApiResponse.success("Пакетное формирование путеводителей завершено", report));
+        } catch (Exception e) {
+            log.error("Error generating roadmap batch", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Ошибка при пакетном формировании путеводителей"));
+        }
+    }
+
+    /**
+     * Выгрузка всех путеводителей: {@code format=ndjson} — по одному JSON на строку,
+     * {@code format=zip} — архив HTML-путеводителей.
+     */
+    @GetMapping("/export/all")
+    public ResponseEntity<StreamingResponseBody> exportAllRoadmaps(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.info("Exporting all roadmaps as {}", format);
+
+        // чтение идет в потоке записи ответа, транзакция открывается внутри сервиса
+        return switch (format.toLowerCase()) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=roadmaps.ndjson")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(roadmapArchiveService::writeNdjson);
+            case "zip" -> ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=roadmaps.zip")
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(roadmapArchiveService::writeZip);
+            default -> {
+                ApiResponse<Void> error = ApiResponse.error("Неизвестный формат выгрузки: " + format);
+                yield ResponseEntity.badRequest()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(out -> objectMapper.writeValue(out, error));
+            }
+        };
+    }
+
+    @GetMapping("/export/cache")
+    public ResponseEntity<ApiResponse<ExportCache.Stats>> exportCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(exportCache.stats()));
+    }
+}
@@ -1,20 +1,42 @@
 package com.utmn.fms.roadmap.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.config.ApplicantFilter;
 import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
 import com.utmn.fms.roadmap.dto.RoadmapDTO;
-import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationRequestDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSummaryDTO;
+import com.utmn.fms.roadmap.service.ExportCache;
 import com.utmn.fms.roadmap.service.ExportService;
+import com.utmn.fms.roadmap.service.RoadmapJobService;
 import com.utmn.fms.roadmap.service.RoadmapService;
-import com.utmn.fms.roadmap.service.SurveyService;
+import com.utmn.fms.roadmap.service.RoadmapSimulationService;
+import com.utmn.fms.roadmap.service.SimulationLimitExceededException;
+import com.utmn.fms.roadmap.service.ResourceVersion;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/roadmap")
@@ -23,49 +45,174 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class RoadmapController {
 
+    // верхняя граница long-poll ожидания статуса задания
+    private static final long MAX_WAIT_SECONDS = 30;
+
     private final RoadmapService roadmapService;
-    private final SurveyService surveyService;
     private final ExportService exportService;
+    private final RoadmapJobService roadmapJobService;
+    private final ObjectMapper objectMapper;
+    private final ExportCache exportCache;
+    private final RoadmapSimulationService roadmapSimulationService;
 
     @GetMapping("/generate")
-    public ResponseEntity<ApiResponse<RoadmapDTO>> requestRoadmap() {
+    public ResponseEntity<ApiResponse<RoadmapDTO>> requestRoadmap(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId, WebRequest request) {
         log.info("Requesting roadmap generation");
 
-        Optional<SurveyDTO> validSurvey = surveyService.findLastValidSurvey();
+        try {
+            // анкета и правила не менялись — 304 без формирования и сериализации путеводителя
+            RoadmapService.GenerationState state = roadmapService.generationState(applicantId);
+            Optional<ResourceVersion> current = state.version();
+            if (current.isPresent() && request.checkNotModified(current.get().etag())) {
+                return null;
+            }
+
+            Optional<RoadmapDTO> roadmap = roadmapService.buildCurrentRoadmap(applicantId);
+
+            if (roadmap.isEmpty()) {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Не найдена валидная анкета. Сначала заполните и сохраните анкету."));
+            }
 
-        if (validSurvey.isEmpty()) {
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+            roadmapService.generatedVersion(state, roadmap.get())
+                    .ifPresent(version -> response.eTag(version.etag()));
+            return response.body(ApiResponse.success("Путеводитель успешно сформирован", roadmap.get()));
+        } catch (Exception e) {
+            log.error("Error generating roadmap", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Ошибка при формировании путеводителя"));
+        }
+    }
+
+    @PostMapping("/generate/async")
+    public ResponseEntity<ApiResponse<RoadmapJobDTO>> requestRoadmapAsync(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId) {
+        log.info("Requesting asynchronous roadmap generation");
+
+        return roadmapJobService.submit(applicantId)
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/roadmap/jobs/" + job.getJobId()))
+                        .body(ApiResponse.success("Формирование путеводителя запущено", job)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(ApiResponse.error("Слишком много заданий в очереди, повторите попытку позже")));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public CompletableFuture<ResponseEntity<ApiResponse<RoadmapJobDTO>>> getRoadmapJob(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") long waitSeconds) {
+
+        Duration wait = Duration.ofSeconds(Math.max(0, Math.min(waitSeconds, MAX_WAIT_SECONDS)));
+        return roadmapJobService.await(applicantId, jobId, wait)
+                .map(job -> job.thenApply(dto -> ResponseEntity.ok(ApiResponse.success("Статус задания", dto))))
+                .orElseGet(() -> CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Задание не найдено"))));
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<HistoryPageDTO<RoadmapSummaryDTO>>> getRoadmapHistory(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success("История путеводителей",
+                    roadmapService.findHistory(applicantId, cursor, size)));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Не найдена валидная анкета. Сначала заполните и сохраните анкету."));
+                    .body(ApiResponse.error("Некорректный курсор истории"));
+        }
+    }
+
+    @GetMapping("/{roadmapId:\\d+}")
+    public ResponseEntity<ApiResponse<RoadmapDTO>> getRoadmap(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @PathVariable Long roadmapId, WebRequest request) {
+        // путеводители не изменяются: для повторного запроса достаточно проверить, что он есть
+        Optional<ResourceVersion> version = roadmapService.roadmapVersion(applicantId, roadmapId);
+        if (version.isPresent() && request.checkNotModified(version.get().etag())) {
+            return null;
+        }
+
+        return roadmapService.findRoadmap(applicantId, roadmapId)
+                .map(roadmap -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(ApiResponse.success("Путеводитель найден", roadmap)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Путеводитель не найден")));
+    }
+
+    /**
+     * Моделирование «что если»: путеводители для всех сочетаний значений сетки без сохранения.
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<ApiResponse<RoadmapSimulationDTO>> simulateRoadmaps(
+            @Valid @RequestBody RoadmapSimulationRequestDTO request,
+            BindingResult bindingResult) {
+
+        if (bindingResult.hasErrors()) {
+            Map<String, String> errors = new HashMap<>();
+            bindingResult.getFieldErrors().forEach(error ->
+                    errors.put(error.getField(), error.getDefaultMessage())
+            );
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Ошибки валидации", errors));
         }
 
         try {
-            RoadmapDTO roadmap = roadmapService.buildRoadmap(validSurvey.get());
-            return ResponseEntity.ok(ApiResponse.success("Путеводитель успешно сформирован", roadmap));
+            RoadmapSimulationDTO simulation = roadmapSimulationService.simulate(request);
+            return ResponseEntity.ok(ApiResponse.success("Моделирование завершено", simulation));
+        } catch (SimulationLimitExceededException e) {
+            log.warn("Rejected roadmap simulation: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Слишком много сочетаний входных данных: " + e.getCombinations()
+                            + " (допустимо не более " + e.getLimit() + ")"));
         } catch (Exception e) {
-            log.error("Error generating roadmap", e);
+            log.error("Error simulating roadmaps", e);
             return ResponseEntity.internalServerError()
-                    .body(ApiResponse.error("Ошибка при формировании путеводителя"));
+                    .body(ApiResponse.error("Ошибка при моделировании путеводителей"));
         }
     }
 
     @GetMapping("/export")
-    public ResponseEntity<?> exportRoadmap() {
+    public ResponseEntity<?> exportRoadmap(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId, WebRequest request) {
         log.info("Exporting roadmap");
 
-        Optional<RoadmapDTO> roadmap = roadmapService.findCurrentRoadmap();
+        // повторная загрузка того же путеводителя обслуживается без обращения к БД и рендеринга
+        Optional<Long> currentId = roadmapService.findCurrentRoadmapId(applicantId);
+        if (currentId.isPresent()) {
+            if (request.checkNotModified(ExportService.etag(currentId.get()))) {
+                return null;
+            }
+            Optional<byte[]> cached = exportCache.get(currentId.get());
+            if (cached.isPresent()) {
+                return htmlAttachment()
+                        .contentLength(cached.get().length)
+                        .body(new ByteArrayResource(cached.get()));
+            }
+        }
+
+        Optional<RoadmapDTO> roadmap = roadmapService.findCurrentRoadmap(applicantId);
 
         if (roadmap.isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error("Путеводитель не найден. Сначала создайте путеводитель."));
         }
 
+        if (request.checkNotModified(ExportService.etag(roadmap.get().getId()))) {
+            return null;
+        }
+
         try {
             byte[] content = exportService.exportToHtml(roadmap.get());
+            exportCache.put(roadmap.get().getId(), content);
             ByteArrayResource resource = new ByteArrayResource(content);
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=roadmap.html")
-                    .contentType(MediaType.TEXT_HTML)
+            return htmlAttachment()
                     .contentLength(content.length)
                     .body(resource);
         } catch (Exception e) {
@@ -74,4 +221,50 @@ public class RoadmapController {
                     .body(ApiResponse.error("Ошибка при экспорте путеводителя"));
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/export", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> exportRoadmapStream(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId, WebRequest request) {
+        log.info("Exporting roadmap as stream");
+
+        Optional<Long> currentId = roadmapService.findCurrentRoadmapId(applicantId);
+        if (currentId.isPresent()) {
+            if (request.checkNotModified(ExportService.etag(currentId.get()))) {
+                return null;
+            }
+            Optional<byte[]> cached = exportCache.get(currentId.get());
+            if (cached.isPresent()) {
+                byte[] content = cached.get();
+                return htmlAttachment()
+                        .contentLength(content.length)
+                        .body(out -> out.write(content));
+            }
+        }
+
+        Optional<RoadmapDTO> roadmap = roadmapService.findCurrentRoadmap(applicantId);
+
+        if (roadmap.isEmpty()) {
+            ApiResponse<Void> error = ApiResponse.error("Путеводитель не найден. Сначала создайте путеводитель.");
+            return ResponseEntity.badRequest()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+
+        RoadmapDTO current = roadmap.get();
+        if (request.checkNotModified(ExportService.etag(current.getId()))) {
+            return null;
+        }
+
+        // документ пишется прямо в ответ; ошибка после начала записи обрывает загрузку
+        return htmlAttachment()
+                .body(out -> exportService.writeHtml(current, out));
+    }
+
+    // ETag в ответ уже записан вызовом WebRequest.checkNotModified
+    private ResponseEntity.BodyBuilder htmlAttachment() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=roadmap.html")
+                .contentType(MediaType.TEXT_HTML)
+                .cacheControl(CacheControl.noCache().cachePrivate());
+    }
+}
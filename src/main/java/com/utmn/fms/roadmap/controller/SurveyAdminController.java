@@ -0,0 +1,49 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.SurveyImportReportDTO;
+import com.utmn.fms.roadmap.service.SurveyImportFormat;
+import com.utmn.fms.roadmap.service.SurveyImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+/**
+ * Служебные операции над анкетами; доступ проверяет {@link com.utmn.fms.roadmap.config.AdminTokenInterceptor}.
+ */
+@RestController
+@RequestMapping("/api/admin/survey")
+@RequiredArgsConstructor
+@Slf4j
+public class SurveyAdminController {
+
+    private final SurveyImportService surveyImportService;
+
+    /**
+     * Массовый импорт анкет: тело запроса — файл CSV ({@code text/csv}) или NDJSON
+     * ({@code application/x-ndjson}) в UTF-8, читается потоком. Обязательный столбец
+     * {@code applicantId} привязывает анкету к заявителю (значение заголовка {@code X-Applicant-Id});
+     * строка без него отклоняется с ошибкой поля.
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ApiResponse<SurveyImportReportDTO>> importSurveys(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        log.info("Importing surveys from {}", contentType);
+
+        try {
+            SurveyImportReportDTO report = surveyImportService.importSurveys(
+                    body, SurveyImportFormat.fromContentType(contentType));
+            return ResponseEntity.ok(ApiResponse.success("Импорт анкет завершен", report));
+        } catch (Exception e) {
+            log.error("Error importing surveys", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Ошибка при импорте анкет"));
+        }
+    }
+}
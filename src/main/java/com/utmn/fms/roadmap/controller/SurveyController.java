@@ -1,18 +1,29 @@
 package com.utmn.fms.roadmap.controller;
 
+import com.utmn.fms.roadmap.config.ApplicantFilter;
 import com.utmn.fms.roadmap.dto.ApiResponse;
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
 import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.SurveyPatchDTO;
+import com.utmn.fms.roadmap.dto.SurveySummaryDTO;
+import com.utmn.fms.roadmap.service.ResourceVersion;
 import com.utmn.fms.roadmap.service.SurveyService;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/survey")
@@ -22,22 +33,47 @@ import java.util.Optional;
 public class SurveyController {
 
     private final SurveyService surveyService;
+    private final Validator validator;
 
     @GetMapping("/open")
-    public ResponseEntity<ApiResponse<SurveyDTO>> openForm() {
+    public ResponseEntity<ApiResponse<SurveyDTO>> openForm(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId, WebRequest request) {
         log.info("Opening survey form");
 
-        Optional<SurveyDTO> draft = surveyService.findLastDraft();
+        // неизмененный черновик — 304 без чтения анкеты и сериализации ответа
+        ResourceVersion version = surveyService.lastDraftVersion(applicantId);
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null;
+        }
+
+        Optional<SurveyDTO> draft = surveyService.findLastDraft(applicantId);
 
         if (draft.isPresent()) {
-            return ResponseEntity.ok(ApiResponse.success("Найден черновик анкеты", draft.get()));
+            return revalidated().body(ApiResponse.success("Найден черновик анкеты", draft.get()));
         } else {
-            return ResponseEntity.ok(ApiResponse.success("Новая анкета", null));
+            return revalidated().body(ApiResponse.success("Новая анкета", null));
+        }
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<HistoryPageDTO<SurveySummaryDTO>>> getHistory(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @RequestParam(defaultValue = "false") boolean drafts,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(ApiResponse.success("История анкет",
+                    surveyService.findHistory(applicantId, drafts, cursor, size)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Некорректный курсор истории"));
         }
     }
 
     @PostMapping("/submit")
     public ResponseEntity<ApiResponse<SurveyDTO>> submitAnswers(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
             @Valid @RequestBody SurveyDTO surveyDTO,
             BindingResult bindingResult) {
 
@@ -53,8 +89,12 @@ public class SurveyController {
         }
 
         try {
-            SurveyDTO saved = surveyService.saveDraft(surveyDTO);
-            return ResponseEntity.ok(ApiResponse.success("Анкета успешно сохранена как черновик", saved));
+            Optional<SurveyDTO> saved = surveyService.saveDraft(applicantId, surveyDTO);
+            if (saved.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Черновик анкеты не найден"));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Анкета успешно сохранена как черновик", saved.get()));
         } catch (Exception e) {
             log.error("Error saving survey draft", e);
             return ResponseEntity.internalServerError()
@@ -62,13 +102,58 @@ public class SurveyController {
         }
     }
 
+    @PatchMapping("/{id}")
+    public ResponseEntity<ApiResponse<SurveyDTO>> patchDraft(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @PathVariable Long id,
+            @RequestBody SurveyPatchDTO patch) {
+
+        log.info("Patching survey draft with id: {}", id);
+
+        Map<String, Object> changes = patch.changes();
+        if (changes.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Не указаны поля для изменения"));
+        }
+
+        // проверяются только переданные поля — по ограничениям полной анкеты
+        Map<String, String> errors = new HashMap<>();
+        changes.forEach((field, value) ->
+                validator.validateValue(SurveyDTO.class, field, value).forEach(violation ->
+                        errors.put(field, violation.getMessage()))
+        );
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Ошибки валидации", errors));
+        }
+
+        try {
+            Optional<SurveyDTO> saved = surveyService.patchDraft(applicantId, id, patch);
+            if (saved.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Черновик анкеты не найден"));
+            }
+            return ResponseEntity.ok(ApiResponse.success("Черновик анкеты обновлен", saved.get()));
+        } catch (Exception e) {
+            log.error("Error patching survey draft", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Ошибка при сохранении анкеты"));
+        }
+    }
+
     @PostMapping("/confirm/{id}")
-    public ResponseEntity<ApiResponse<SurveyDTO>> confirmSave(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<SurveyDTO>> confirmSave(
+            @RequestAttribute(ApplicantFilter.ATTRIBUTE) UUID applicantId,
+            @PathVariable Long id) {
         log.info("Confirming survey save for id: {}", id);
 
         try {
-            SurveyDTO saved = surveyService.createNewVersion(id);
+            SurveyDTO saved = surveyService.createNewVersion(applicantId, id);
             return ResponseEntity.ok(ApiResponse.success("Анкета успешно сохранена", saved));
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent survey confirmation for id: {}", id, e);
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Анкета изменена параллельно, повторите попытку"));
         } catch (RuntimeException e) {
             log.error("Error confirming survey save", e);
             return ResponseEntity.badRequest()
@@ -79,4 +164,9 @@ public class SurveyController {
                     .body(ApiResponse.error("Ошибка при сохранении анкеты"));
         }
     }
-}
\ No newline at end of file
+
+    // ETag и Last-Modified в ответ уже записаны вызовом WebRequest.checkNotModified
+    private ResponseEntity.BodyBuilder revalidated() {
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate());
+    }
+}
@@ -0,0 +1,18 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadlineGroupDTO {
+
+    private String ruleId;
+    private String title;
+    private String citizenship;
+    private long count;
+}
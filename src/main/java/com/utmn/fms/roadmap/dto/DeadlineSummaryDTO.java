@@ -0,0 +1,24 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Сводка сроков за период {@code from}–{@code to} по видам рекомендаций и гражданству.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadlineSummaryDTO {
+
+    private LocalDate from;
+    private LocalDate to;
+    private long total;
+    private List<DeadlineGroupDTO> groups;
+}
@@ -0,0 +1,24 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DueRecommendationDTO {
+
+    private Long recommendationId;
+    private Long roadmapId;
+    private Long surveyId;
+    private String fullName;
+    private String citizenship;
+    private String ruleId;
+    private String title;
+    private LocalDate executionDate;
+}
@@ -0,0 +1,21 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница истории. {@code nextCursor} передается в следующий запрос; {@code null} — записей больше нет.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HistoryPageDTO<T> {
+
+    private List<T> items;
+    private String nextCursor;
+}
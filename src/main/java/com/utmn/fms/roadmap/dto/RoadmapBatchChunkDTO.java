@@ -0,0 +1,22 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapBatchChunkDTO {
+
+    private int index;
+    private int requested;
+    private int generated;
+    private int reused;
+    private List<Long> missingSurveyIds;
+    private String error;
+}
@@ -0,0 +1,22 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapBatchReportDTO {
+
+    private int requested;
+    private int generated;
+    private int reused;
+    private int failed;
+    private long elapsedMillis;
+    private List<RoadmapBatchChunkDTO> chunks;
+}
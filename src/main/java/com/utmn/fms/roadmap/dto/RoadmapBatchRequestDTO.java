@@ -0,0 +1,21 @@
+package com.utmn.fms.roadmap.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapBatchRequestDTO {
+
+    @NotEmpty(message = "Список анкет не может быть пустым")
+    @Size(max = 10000, message = "За один запрос можно обработать не более 10000 анкет")
+    private List<Long> surveyIds;
+}
@@ -0,0 +1,22 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapJobDTO {
+
+    private String jobId;
+    private RoadmapJobStatus status;
+    private RoadmapDTO roadmap;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,8 @@
+package com.utmn.fms.roadmap.dto;
+
+public enum RoadmapJobStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
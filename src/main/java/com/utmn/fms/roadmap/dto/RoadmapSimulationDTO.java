@@ -0,0 +1,26 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат моделирования. Названия рекомендаций передаются один раз в {@code rules} (id правила → название),
+ * а результаты сочетаний содержат только сроки.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapSimulationDTO {
+
+    private int ruleSetVersion;
+    private int combinations;
+    private long elapsedMillis;
+    private Map<String, String> rules;
+    private List<SimulationResultDTO> results;
+}
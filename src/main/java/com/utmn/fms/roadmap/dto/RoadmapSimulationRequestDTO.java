@@ -0,0 +1,42 @@
+package com.utmn.fms.roadmap.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Сетка входных данных для моделирования: путеводитель вычисляется для каждого сочетания значений.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapSimulationRequestDTO {
+
+    @NotEmpty(message = "Укажите хотя бы одну дату въезда")
+    private List<@NotNull(message = "Дата въезда не может быть пустой") LocalDate> entryDates;
+
+    @NotEmpty(message = "Укажите хотя бы один срок пребывания")
+    private List<@NotNull(message = "Срок пребывания не может быть пустым")
+            @Positive(message = "Срок пребывания должен быть положительным числом") Integer> durationsOfStay;
+
+    @NotEmpty(message = "Укажите хотя бы одну цель пребывания")
+    private List<@NotBlank(message = "Цель пребывания не может быть пустой") String> purposesOfStay;
+
+    @NotEmpty(message = "Укажите хотя бы одно гражданство")
+    private List<@NotBlank(message = "Гражданство не может быть пустым") String> citizenships;
+
+    @NotEmpty(message = "Укажите наличие дактилоскопии")
+    private List<@NotNull(message = "Значение не может быть пустым") Boolean> hasFingerprints;
+
+    @NotEmpty(message = "Укажите наличие медосмотра")
+    private List<@NotNull(message = "Значение не может быть пустым") Boolean> hasMedicalExam;
+}
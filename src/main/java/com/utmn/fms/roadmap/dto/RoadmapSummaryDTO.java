@@ -0,0 +1,20 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RoadmapSummaryDTO {
+
+    private Long id;
+    private Long surveyId;
+    private LocalDate createdDate;
+    private Integer recommendationCount;
+}
@@ -0,0 +1,27 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Путеводитель для одного сочетания входных данных: сроки по id правил в порядке отображения.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SimulationResultDTO {
+
+    private LocalDate entryDate;
+    private Integer durationOfStay;
+    private String purposeOfStay;
+    private String citizenship;
+    private Boolean hasFingerprints;
+    private Boolean hasMedicalExam;
+    private Map<String, LocalDate> deadlines;
+}
@@ -0,0 +1,19 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveyImportErrorDTO {
+
+    // номер строки файла, начиная с 1 (для CSV строка 1 — заголовок)
+    private int line;
+    private Map<String, String> errors;
+}
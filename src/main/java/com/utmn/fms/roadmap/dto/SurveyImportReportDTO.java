@@ -0,0 +1,26 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveyImportReportDTO {
+
+    private int processed;
+    private int imported;
+    private int rejected;
+    private long elapsedMillis;
+
+    // ошибки первых отклоненных строк; при превышении лимита errorsTruncated = true
+    @Builder.Default
+    private List<SurveyImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,69 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Частичное изменение черновика анкеты: передаются только измененные поля,
+ * отсутствующие (или {@code null}) поля не меняются.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveyPatchDTO {
+
+    private String fullName;
+    private String citizenship;
+    private LocalDate entryDate;
+    private String purposeOfStay;
+    private Integer durationOfStay;
+    private Boolean hasFingerprints;
+    private Boolean hasMedicalExam;
+
+    /**
+     * Измененные поля: имя свойства анкеты → новое значение.
+     */
+    public Map<String, Object> changes() {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfPresent(changes, "fullName", fullName);
+        putIfPresent(changes, "citizenship", citizenship);
+        putIfPresent(changes, "entryDate", entryDate);
+        putIfPresent(changes, "purposeOfStay", purposeOfStay);
+        putIfPresent(changes, "durationOfStay", durationOfStay);
+        putIfPresent(changes, "hasFingerprints", hasFingerprints);
+        putIfPresent(changes, "hasMedicalExam", hasMedicalExam);
+        return changes;
+    }
+
+    /**
+     * Новая анкета с примененными изменениями; исходная не меняется.
+     */
+    public SurveyDTO applyTo(SurveyDTO survey) {
+        return SurveyDTO.builder()
+                .id(survey.getId())
+                .fullName(fullName != null ? fullName : survey.getFullName())
+                .citizenship(citizenship != null ? citizenship : survey.getCitizenship())
+                .entryDate(entryDate != null ? entryDate : survey.getEntryDate())
+                .purposeOfStay(purposeOfStay != null ? purposeOfStay : survey.getPurposeOfStay())
+                .durationOfStay(durationOfStay != null ? durationOfStay : survey.getDurationOfStay())
+                .hasFingerprints(hasFingerprints != null ? hasFingerprints : survey.getHasFingerprints())
+                .hasMedicalExam(hasMedicalExam != null ? hasMedicalExam : survey.getHasMedicalExam())
+                .isDraft(survey.getIsDraft())
+                .isValid(survey.getIsValid())
+                .version(survey.getVersion())
+                .build();
+    }
+
+    private static void putIfPresent(Map<String, Object> changes, String field, Object value) {
+        if (value != null) {
+            changes.put(field, value);
+        }
+    }
+}
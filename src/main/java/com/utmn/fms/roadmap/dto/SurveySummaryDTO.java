@@ -0,0 +1,24 @@
+package com.utmn.fms.roadmap.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveySummaryDTO {
+
+    private Long id;
+    private String fullName;
+    private String citizenship;
+    private Integer version;
+    private Boolean isDraft;
+    private Boolean isValid;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -5,10 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recommendation")
 @Table(name = "recommendations")
 @Data
 @NoArgsConstructor
@@ -17,18 +20,20 @@ import java.time.LocalDate;
 public class Recommendation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendationIdGenerator")
+    @SequenceGenerator(name = "recommendationIdGenerator", sequenceName = "recommendations_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "roadmap_id")
     private Roadmap roadmap;
 
-    @Column(name = "title")
-    private String title;
+    // текст хранится в справочнике recommendation_templates, здесь — только ссылка и параметры
+    @Column(name = "template_id")
+    private Long templateId;
 
-    @Column(name = "description", columnDefinition = "TEXT")
-    private String description;
+    @Column(name = "parameters")
+    private String parameters;
 
     @Column(name = "execution_date")
     private LocalDate executionDate;
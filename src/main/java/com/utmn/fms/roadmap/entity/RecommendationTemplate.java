@@ -0,0 +1,41 @@
+package com.utmn.fms.roadmap.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
+
+@Entity
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "recommendation-template")
+@Table(name = "recommendation_templates")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecommendationTemplate {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendationTemplateIdGenerator")
+    @SequenceGenerator(name = "recommendationTemplateIdGenerator", sequenceName = "recommendation_templates_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "rule_id")
+    private String ruleId;
+
+    @Column(name = "locale")
+    private String locale;
+
+    @Column(name = "title")
+    private String title;
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+}
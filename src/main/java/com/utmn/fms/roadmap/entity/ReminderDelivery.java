@@ -0,0 +1,41 @@
+package com.utmn.fms.roadmap.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Отметка об отправленном напоминании. Записи только добавляются, поэтому сохранение
+ * идет через persist без предварительного SELECT по присвоенному идентификатору.
+ */
+@Entity
+@Table(name = "reminder_deliveries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderDelivery implements Persistable<Long> {
+
+    @Id
+    @Column(name = "recommendation_id")
+    private Long recommendationId;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+    @Override
+    public Long getId() {
+        return recommendationId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -5,12 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roadmap")
 @Table(name = "roadmaps")
 @Data
 @NoArgsConstructor
@@ -19,16 +23,30 @@ import java.util.List;
 public class Roadmap {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "roadmapIdGenerator")
+    @SequenceGenerator(name = "roadmapIdGenerator", sequenceName = "roadmaps_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
     @JoinColumn(name = "survey_id")
     private Survey survey;
 
+    // заявитель анкеты; хранится в путеводителе для поиска без соединения с анкетами
+    @Column(name = "applicant_id", updatable = false)
+    private UUID applicantId;
+
     @Column(name = "created_date")
     private LocalDate createdDate;
 
+    @Column(name = "input_hash")
+    private String inputHash;
+
+    // действующий путеводитель заявителя, на смену которому сформирован этот (0 — первый)
+    @Column(name = "previous_id", updatable = false)
+    @Builder.Default
+    private Long previousId = 0L;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "roadmap-recommendations")
     @OneToMany(mappedBy = "roadmap", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<Recommendation> recommendations = new ArrayList<>();
@@ -5,11 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "survey")
 @Table(name = "surveys")
 @Data
 @NoArgsConstructor
@@ -18,7 +24,8 @@ import java.time.LocalDateTime;
 public class Survey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "surveyIdGenerator")
+    @SequenceGenerator(name = "surveyIdGenerator", sequenceName = "surveys_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "full_name")
@@ -51,6 +58,17 @@ public class Survey {
     @Column(name = "version")
     private Integer version;
 
+    // подтвержденные версии ссылаются на черновик, из которого созданы
+    @Column(name = "draft_id")
+    private Long draftId;
+
+    @Column(name = "applicant_id", updatable = false)
+    private UUID applicantId;
+
+    @Version
+    @Column(name = "lock_version")
+    private Long lockVersion;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,7 @@
+package com.utmn.fms.roadmap.event;
+
+/**
+ * Публикуется при сохранении нового путеводителя; слушатели получают его после коммита транзакции.
+ */
+public record RoadmapCreatedEvent(Long roadmapId, Long surveyId) {
+}
@@ -0,0 +1,9 @@
+package com.utmn.fms.roadmap.event;
+
+import com.utmn.fms.roadmap.rules.RuleSet;
+
+/**
+ * Публикуется синхронно перед заменой таблицы правил; ошибка слушателя отменяет замену.
+ */
+public record RuleSetReloadedEvent(RuleSet ruleSet) {
+}
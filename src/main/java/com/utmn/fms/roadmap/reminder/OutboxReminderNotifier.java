@@ -0,0 +1,54 @@
+package com.utmn.fms.roadmap.reminder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Локальная замена рассылки: напоминания дописываются в файл {@code roadmap.reminders.outbox}
+ * по одному JSON на строку, а если файл не задан — пишутся в журнал. Другой канал подключается
+ * свойством {@code roadmap.reminders.notifier} и собственной реализацией {@link ReminderNotifier}.
+ */
+@Component
+@ConditionalOnProperty(name = "roadmap.reminders.notifier", havingValue = "outbox", matchIfMissing = true)
+@Slf4j
+public class OutboxReminderNotifier implements ReminderNotifier {
+
+    private final ObjectMapper objectMapper;
+    private final Path outbox;
+
+    public OutboxReminderNotifier(ObjectMapper objectMapper,
+                                  @Value("${roadmap.reminders.outbox:}") String outbox) {
+        this.objectMapper = objectMapper;
+        this.outbox = outbox.isBlank() ? null : Path.of(outbox);
+    }
+
+    @Override
+    public synchronized void send(List<ReminderMessage> messages) {
+        if (outbox == null) {
+            messages.forEach(message -> log.info("Reminder: roadmap {}, \"{}\" due {}",
+                    message.roadmapId(), message.title(), message.executionDate()));
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(outbox, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (ReminderMessage message : messages) {
+                writer.write(objectMapper.writeValueAsString(message));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write reminders to " + outbox, e);
+        }
+    }
+}
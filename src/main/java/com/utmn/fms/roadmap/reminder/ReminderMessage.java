@@ -0,0 +1,16 @@
+package com.utmn.fms.roadmap.reminder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Напоминание о сроке рекомендации путеводителя.
+ */
+public record ReminderMessage(
+        Long recommendationId,
+        Long roadmapId,
+        String title,
+        String description,
+        LocalDate executionDate,
+        LocalDateTime remindAt) {
+}
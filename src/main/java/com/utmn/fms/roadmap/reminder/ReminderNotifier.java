@@ -0,0 +1,12 @@
+package com.utmn.fms.roadmap.reminder;
+
+import java.util.List;
+
+/**
+ * Канал доставки напоминаний. Исключение означает, что порция не доставлена: напоминания
+ * не отмечаются отправленными и будут отправлены повторно.
+ */
+public interface ReminderNotifier {
+
+    void send(List<ReminderMessage> messages);
+}
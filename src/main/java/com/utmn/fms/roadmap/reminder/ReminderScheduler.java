@@ -0,0 +1,256 @@
+package com.utmn.fms.roadmap.reminder;
+
+import com.utmn.fms.roadmap.entity.ReminderDelivery;
+import com.utmn.fms.roadmap.event.RoadmapCreatedEvent;
+import com.utmn.fms.roadmap.repository.PendingReminder;
+import com.utmn.fms.roadmap.repository.ReminderDeliveryRepository;
+import com.utmn.fms.roadmap.service.RecommendationTemplateService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Напоминания о сроках рекомендаций. Напоминание отправляется за {@code roadmap.reminders.lead-days}
+ * дней до срока в {@code roadmap.reminders.send-time}.
+ * <p>
+ * Ожидающие напоминания читаются из БД порциями по индексу {@code recommendations(execution_date, id)}:
+ * курсор идет вперед по срокам в окне от {@code catch-up} в прошлом до {@code horizon} в будущем,
+ * а прочитанное раскладывается в колесо таймеров. В памяти не больше {@code max-scheduled}
+ * напоминаний; когда колесо заполнено, чтение останавливается и продолжается с курсора после
+ * отправки. Новые путеводители со сроками позади курсора дочитываются по событию создания.
+ * <p>
+ * Напоминания отправляются только по действующему (последнему) путеводителю заявителя: сроки
+ * замененных путеводителей не читаются, а запланированные до замены отбрасываются перед отправкой.
+ * <p>
+ * Отправленные напоминания записываются в {@code reminder_deliveries} после доставки, поэтому
+ * после перезапуска неотправленные подхватываются заново (доставка «хотя бы один раз»).
+ */
+@Component
+@ConditionalOnProperty(name = "roadmap.reminders.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class ReminderScheduler implements MeterBinder {
+
+    private static final int WHEEL_LEVELS = 4;
+    private static final int MAX_CREATED_ROADMAPS = 1000;
+
+    private final ReminderDeliveryRepository deliveryRepository;
+    private final RecommendationTemplateService templateService;
+    private final ReminderNotifier notifier;
+    private final TransactionTemplate transactionTemplate;
+    private final int leadDays;
+    private final LocalTime sendTime;
+    private final Duration horizon;
+    private final Duration catchUp;
+    private final int maxScheduled;
+    private final int pageSize;
+
+    private final TimingWheel<PendingReminder> wheel;
+    // запланированные и отправляемые напоминания: повторное чтение тех же строк их не дублирует
+    private final Set<Long> scheduled = new HashSet<>();
+    private final BlockingQueue<Long> createdRoadmaps = new ArrayBlockingQueue<>(MAX_CREATED_ROADMAPS);
+
+    // курсор чтения (execution_date, id); сбрасывается в начало окна при rescan
+    private LocalDate cursorDate;
+    private long cursorId;
+    private volatile boolean rescan = true;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder replaced = new LongAdder();
+
+    public ReminderScheduler(ReminderDeliveryRepository deliveryRepository,
+                             RecommendationTemplateService templateService,
+                             ReminderNotifier notifier,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${roadmap.reminders.lead-days:3}") int leadDays,
+                             @Value("${roadmap.reminders.send-time:09:00}") String sendTime,
+                             @Value("${roadmap.reminders.horizon:2d}") Duration horizon,
+                             @Value("${roadmap.reminders.catch-up:7d}") Duration catchUp,
+                             @Value("${roadmap.reminders.max-scheduled:100000}") int maxScheduled,
+                             @Value("${roadmap.reminders.page-size:1000}") int pageSize,
+                             @Value("${roadmap.reminders.tick:1s}") Duration tick) {
+        this.deliveryRepository = deliveryRepository;
+        this.templateService = templateService;
+        this.notifier = notifier;
+        this.transactionTemplate = transactionTemplate;
+        this.leadDays = leadDays;
+        this.sendTime = LocalTime.parse(sendTime);
+        this.horizon = horizon;
+        this.catchUp = catchUp;
+        this.maxScheduled = maxScheduled;
+        this.pageSize = pageSize;
+        this.wheel = new TimingWheel<>(tick.toMillis(), WHEEL_LEVELS, System.currentTimeMillis());
+    }
+
+    /**
+     * Дочитывает ожидающие напоминания в колесо таймеров.
+     */
+    @Scheduled(fixedDelayString = "${roadmap.reminders.scan-interval:1m}")
+    public void scan() {
+        List<PendingReminder> due = new ArrayList<>();
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDate from = now.minus(catchUp).toLocalDate().plusDays(leadDays);
+            LocalDate to = now.plus(horizon).toLocalDate().plusDays(leadDays);
+            if (rescan) {
+                rescan = false;
+                createdRoadmaps.clear();
+                cursorDate = from.minusDays(1);
+                cursorId = 0;
+            }
+
+            List<Long> roadmapIds = new ArrayList<>();
+            createdRoadmaps.drainTo(roadmapIds);
+            if (!roadmapIds.isEmpty()) {
+                // строки впереди курсора прочитает основной просмотр
+                deliveryRepository.findPendingByRoadmapIds(roadmapIds, from, to).stream()
+                        .filter(reminder -> !isAhead(reminder))
+                        .forEach(reminder -> schedule(reminder, due));
+            }
+
+            while (scheduled.size() < maxScheduled) {
+                int limit = Math.min(pageSize, maxScheduled - scheduled.size());
+                List<PendingReminder> page = deliveryRepository.findPending(
+                        from, to, cursorDate.isBefore(from) ? from.minusDays(1) : cursorDate, cursorId, Limit.of(limit));
+                for (PendingReminder reminder : page) {
+                    schedule(reminder, due);
+                    cursorDate = reminder.executionDate();
+                    cursorId = reminder.recommendationId();
+                }
+                if (page.size() < limit) {
+                    break;
+                }
+            }
+        }
+        dispatch(due);
+    }
+
+    /**
+     * Отправляет напоминания, срок которых наступил.
+     */
+    @Scheduled(fixedRateString = "${roadmap.reminders.tick:1s}")
+    public void tick() {
+        List<PendingReminder> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        dispatch(due);
+    }
+
+    @TransactionalEventListener
+    public void onRoadmapCreated(RoadmapCreatedEvent event) {
+        // очередь ограничена; при переполнении окно перечитывается целиком
+        if (!createdRoadmaps.offer(event.roadmapId())) {
+            rescan = true;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("roadmap.reminders.scheduled", this, scheduler -> scheduler.scheduledCount())
+                .register(registry);
+        FunctionCounter.builder("roadmap.reminders.sent", sent, LongAdder::sum)
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("roadmap.reminders.sent", failed, LongAdder::sum)
+                .tag("result", "failure")
+                .register(registry);
+        FunctionCounter.builder("roadmap.reminders.sent", replaced, LongAdder::sum)
+                .tag("result", "replaced")
+                .register(registry);
+    }
+
+    private synchronized int scheduledCount() {
+        return scheduled.size();
+    }
+
+    private boolean isAhead(PendingReminder reminder) {
+        int byDate = reminder.executionDate().compareTo(cursorDate);
+        return byDate > 0 || (byDate == 0 && reminder.recommendationId() > cursorId);
+    }
+
+    private void schedule(PendingReminder reminder, List<PendingReminder> due) {
+        if (!scheduled.add(reminder.recommendationId())) {
+            return;
+        }
+        long remindAt = remindAt(reminder).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (!wheel.schedule(remindAt, reminder)) {
+            due.add(reminder);
+        }
+    }
+
+    private LocalDateTime remindAt(PendingReminder reminder) {
+        return reminder.executionDate().minusDays(leadDays).atTime(sendTime);
+    }
+
+    private void dispatch(List<PendingReminder> due) {
+        for (int start = 0; start < due.size(); start += pageSize) {
+            List<PendingReminder> chunk = due.subList(start, Math.min(start + pageSize, due.size()));
+            try {
+                List<PendingReminder> current = currentOnly(chunk);
+                replaced.add(chunk.size() - current.size());
+                if (current.isEmpty()) {
+                    continue;
+                }
+                notifier.send(current.stream().map(this::toMessage).toList());
+                LocalDateTime sentAt = LocalDateTime.now();
+                transactionTemplate.executeWithoutResult(status -> deliveryRepository.saveAll(current.stream()
+                        .map(reminder -> new ReminderDelivery(reminder.recommendationId(), sentAt))
+                        .toList()));
+                sent.add(current.size());
+            } catch (RuntimeException e) {
+                failed.add(chunk.size());
+                rescan = true;
+                log.error("Error sending {} reminders, they will be retried", chunk.size(), e);
+            } finally {
+                synchronized (this) {
+                    chunk.forEach(reminder -> scheduled.remove(reminder.recommendationId()));
+                }
+            }
+        }
+        if (!due.isEmpty()) {
+            log.info("Dispatched {} deadline reminders", due.size());
+        }
+    }
+
+    private List<PendingReminder> currentOnly(List<PendingReminder> chunk) {
+        Set<Long> current = new HashSet<>(deliveryRepository.findCurrentRoadmapIds(
+                chunk.stream().map(PendingReminder::roadmapId).collect(Collectors.toSet())));
+        return chunk.stream()
+                .filter(reminder -> current.contains(reminder.roadmapId()))
+                .toList();
+    }
+
+    private ReminderMessage toMessage(PendingReminder reminder) {
+        return new ReminderMessage(
+                reminder.recommendationId(),
+                reminder.roadmapId(),
+                templateService.title(reminder.templateId()),
+                templateService.description(reminder.templateId(), reminder.parameters()),
+                reminder.executionDate(),
+                remindAt(reminder));
+    }
+}
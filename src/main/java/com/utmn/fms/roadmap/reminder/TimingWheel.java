@@ -0,0 +1,120 @@
+package com.utmn.fms.roadmap.reminder;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Иерархическое колесо таймеров. Уровень {@code i} состоит из 64 ячеек шириной 64<sup>i</sup>
+ * тиков; задача попадает на самый младший уровень, в пределах которого ее срок совпадает
+ * с текущим тиком по старшим разрядам. Когда младшие разряды текущего тика обнуляются,
+ * ячейка старшего уровня раскладывается по младшим. Добавление и срабатывание — O(1)
+ * на задачу независимо от числа задач и дальности срока; задачи дальше старшего уровня
+ * остаются в его ячейках и перекладываются при каждом обороте.
+ * <p>
+ * Класс не потокобезопасен: вызовы синхронизирует владелец.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final ArrayDeque<Entry<T>>[][] slots;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels < 1 || BITS * levels >= Long.SIZE) {
+            throw new IllegalArgumentException("Invalid timing wheel: tick " + tickMillis + " ms, levels " + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = new ArrayDeque[levels][SLOTS];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Планирует задачу. Возвращает {@code false}, если срок уже наступил — тогда задача
+     * не добавляется и выполняется вызывающим кодом сразу.
+     */
+    boolean schedule(long deadlineMillis, T task) {
+        return place(new Entry<>(Math.floorDiv(deadlineMillis, tickMillis), task));
+    }
+
+    /**
+     * Продвигает колесо до момента {@code nowMillis} и передает наступившие задачи в {@code expired}.
+     */
+    void advance(long nowMillis, Consumer<T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target);
+            return;
+        }
+        while (currentTick < target) {
+            currentTick++;
+            // сначала старшие уровни: их задачи могут попасть в ячейку младшего, срабатывающую сейчас
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, expired);
+                }
+            }
+            ArrayDeque<Entry<T>> due = slots[0][(int) (currentTick & MASK)];
+            if (due != null) {
+                size -= due.size();
+                for (Entry<T> entry : due) {
+                    expired.accept(entry.task());
+                }
+                due.clear();
+            }
+            if (size == 0) {
+                currentTick = target;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, Consumer<T> expired) {
+        int index = (int) ((currentTick >>> (BITS * level)) & MASK);
+        ArrayDeque<Entry<T>> slot = slots[level][index];
+        if (slot == null || slot.isEmpty()) {
+            return;
+        }
+        // задачи дальше старшего уровня возвращаются в ту же ячейку, поэтому она сначала отцепляется
+        slots[level][index] = null;
+        size -= slot.size();
+        for (Entry<T> entry : slot) {
+            if (!place(entry)) {
+                expired.accept(entry.task());
+            }
+        }
+    }
+
+    private boolean place(Entry<T> entry) {
+        if (entry.tick() <= currentTick) {
+            return false;
+        }
+        int level = 0;
+        while (level < levels - 1
+                && (entry.tick() >>> (BITS * (level + 1))) != (currentTick >>> (BITS * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((entry.tick() >>> (BITS * level)) & MASK);
+        ArrayDeque<Entry<T>> slot = slots[level][index];
+        if (slot == null) {
+            slot = new ArrayDeque<>();
+            slots[level][index] = slot;
+        }
+        slot.add(entry);
+        size++;
+        return true;
+    }
+
+    private record Entry<T>(long tick, T task) {
+    }
+}
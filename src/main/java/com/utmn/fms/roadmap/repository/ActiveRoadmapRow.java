@@ -0,0 +1,18 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Строка действующего путеводителя заявителя с рекомендацией.
+ */
+public record ActiveRoadmapRow(
+        UUID applicantId,
+        Long roadmapId,
+        LocalDate createdDate,
+        Long recommendationId,
+        Long templateId,
+        String parameters,
+        LocalDate executionDate,
+        Integer displayOrder) {
+}
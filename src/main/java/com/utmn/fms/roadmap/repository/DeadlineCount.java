@@ -0,0 +1,14 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Число рекомендаций со сроком на дату по шаблону и гражданству заявителя.
+ * В сводке за период {@code executionDate} равна {@code null}.
+ */
+public record DeadlineCount(
+        LocalDate executionDate,
+        Long templateId,
+        String citizenship,
+        long count) {
+}
@@ -0,0 +1,135 @@
+package com.utmn.fms.roadmap.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Счетчики сроков {@code deadline_counters} и учтенные в них путеводители заявителей {@code deadline_applicants}.
+ * Запись идет через JDBC в транзакции вызывающего кода: изменение счетчиков не проходит через Hibernate
+ * и не сбрасывает его кэш запросов.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class DeadlineCounterRepository {
+
+    private static final String INCREMENT = "MERGE INTO deadline_counters c " +
+            "USING (VALUES (CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS VARCHAR(100)), CAST(? AS BIGINT))) " +
+            "v(execution_date, template_id, citizenship, delta) " +
+            "ON c.execution_date = v.execution_date AND c.template_id = v.template_id AND c.citizenship = v.citizenship " +
+            "WHEN MATCHED THEN UPDATE SET recommendation_count = c.recommendation_count + v.delta " +
+            "WHEN NOT MATCHED THEN INSERT (execution_date, template_id, citizenship, recommendation_count) " +
+            "VALUES (v.execution_date, v.template_id, v.citizenship, v.delta)";
+
+    // пустое обновление существующей строки нужно ради блокировки: второй MERGE того же заявителя ждет коммита первого
+    private static final String LOCK_APPLICANT = "MERGE INTO deadline_applicants a " +
+            "USING (VALUES (CAST(? AS UUID))) v(applicant_id) ON a.applicant_id = v.applicant_id " +
+            "WHEN MATCHED THEN UPDATE SET roadmap_id = a.roadmap_id " +
+            "WHEN NOT MATCHED THEN INSERT (applicant_id, roadmap_id) VALUES (v.applicant_id, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Прибавляет {@code count} к счетчикам (отрицательный — вычитает). Ключи должны быть упорядочены, чтобы параллельные
+     * транзакции блокировали строки в одном порядке.
+     */
+    public void increment(List<DeadlineCount> deltas) {
+        try {
+            batchIncrement(deltas);
+        } catch (DuplicateKeyException e) {
+            // новый ключ одновременно вставлен другой транзакцией — теперь он существует и обновляется
+            log.debug("Concurrent insert of deadline counter, retrying", e);
+            batchIncrement(deltas);
+        }
+    }
+
+    /**
+     * Блокирует строки заявителей до конца транзакции и возвращает путеводитель, учтенный для каждого
+     * (0 — ни одного). Строки блокируются в порядке ключей, чтобы параллельные транзакции не ждали друг друга по кругу.
+     */
+    public Map<UUID, Long> lockCountedRoadmaps(Collection<UUID> applicantIds) {
+        List<UUID> ordered = applicantIds.stream().sorted().toList();
+        try {
+            batchLock(ordered);
+        } catch (DuplicateKeyException e) {
+            log.debug("Concurrent insert of deadline applicant, retrying", e);
+            batchLock(ordered);
+        }
+
+        Map<UUID, Long> counted = new HashMap<>();
+        jdbcTemplate.query("SELECT applicant_id, roadmap_id FROM deadline_applicants WHERE applicant_id IN (" +
+                        String.join(",", Collections.nCopies(ordered.size(), "?")) + ")",
+                rs -> {
+                    counted.put(rs.getObject(1, UUID.class), rs.getLong(2));
+                },
+                ordered.toArray());
+        return counted;
+    }
+
+    /**
+     * Запоминает путеводители, сроки которых теперь учтены. Строки должны быть заблокированы
+     * {@link #lockCountedRoadmaps} в той же транзакции.
+     */
+    public void markCounted(Map<UUID, Long> roadmapIds) {
+        jdbcTemplate.batchUpdate("UPDATE deadline_applicants SET roadmap_id = ? WHERE applicant_id = ?",
+                List.copyOf(roadmapIds.entrySet()), roadmapIds.size(), (statement, entry) -> {
+                    statement.setLong(1, entry.getValue());
+                    statement.setObject(2, entry.getKey());
+                });
+    }
+
+    public List<DeadlineCount> sumByTemplateAndCitizenship(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT template_id, citizenship, SUM(recommendation_count) FROM deadline_counters " +
+                        "WHERE execution_date BETWEEN ? AND ? GROUP BY template_id, citizenship " +
+                        "HAVING SUM(recommendation_count) > 0",
+                (rs, row) -> new DeadlineCount(null, rs.getLong(1), rs.getString(2), rs.getLong(3)),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // строка заявителя появляется при первом учете его путеводителя, даже если сроков в нем нет
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM deadline_applicants LIMIT 1").isEmpty();
+    }
+
+    /**
+     * Пересчитывает счетчики по рекомендациям действующих путеводителей. Возвращает число строк счетчиков.
+     */
+    public int rebuild() {
+        jdbcTemplate.update("DELETE FROM deadline_applicants");
+        jdbcTemplate.update("INSERT INTO deadline_applicants (applicant_id, roadmap_id) " +
+                "SELECT applicant_id, MAX(id) FROM roadmaps GROUP BY applicant_id");
+        jdbcTemplate.update("DELETE FROM deadline_counters");
+        return jdbcTemplate.update("INSERT INTO deadline_counters " +
+                "(execution_date, template_id, citizenship, recommendation_count) " +
+                "SELECT r.execution_date, r.template_id, s.citizenship, COUNT(*) FROM recommendations r " +
+                "JOIN roadmaps m ON m.id = r.roadmap_id JOIN surveys s ON s.id = m.survey_id " +
+                "WHERE m.id = (SELECT MAX(c.id) FROM roadmaps c WHERE c.applicant_id = m.applicant_id) " +
+                "GROUP BY r.execution_date, r.template_id, s.citizenship");
+    }
+
+    private void batchLock(List<UUID> applicantIds) {
+        jdbcTemplate.batchUpdate(LOCK_APPLICANT, applicantIds, applicantIds.size(),
+                (statement, applicantId) -> statement.setObject(1, applicantId));
+    }
+
+    private void batchIncrement(List<DeadlineCount> deltas) {
+        jdbcTemplate.batchUpdate(INCREMENT, deltas, deltas.size(), (statement, delta) -> {
+            statement.setDate(1, Date.valueOf(delta.executionDate()));
+            statement.setLong(2, delta.templateId());
+            statement.setString(3, delta.citizenship());
+            statement.setLong(4, delta.count());
+        });
+    }
+}
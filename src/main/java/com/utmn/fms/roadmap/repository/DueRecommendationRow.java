@@ -0,0 +1,16 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Строка проекции "рекомендация + заявитель" для списка ближайших сроков.
+ */
+public record DueRecommendationRow(
+        Long recommendationId,
+        Long roadmapId,
+        Long surveyId,
+        String fullName,
+        String citizenship,
+        Long templateId,
+        LocalDate executionDate) {
+}
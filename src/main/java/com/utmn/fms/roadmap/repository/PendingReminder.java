@@ -0,0 +1,14 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Рекомендация, напоминание о сроке которой еще не отправлено.
+ */
+public record PendingReminder(
+        Long recommendationId,
+        Long roadmapId,
+        Long templateId,
+        String parameters,
+        LocalDate executionDate) {
+}
@@ -0,0 +1,13 @@
+package com.utmn.fms.roadmap.repository;
+
+import com.utmn.fms.roadmap.entity.RecommendationTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RecommendationTemplateRepository extends JpaRepository<RecommendationTemplate, Long> {
+
+    Optional<RecommendationTemplate> findByContentHash(String contentHash);
+}
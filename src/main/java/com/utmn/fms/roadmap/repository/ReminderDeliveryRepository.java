@@ -0,0 +1,46 @@
+package com.utmn.fms.roadmap.repository;
+
+import com.utmn.fms.roadmap.entity.ReminderDelivery;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReminderDeliveryRepository extends JpaRepository<ReminderDelivery, Long> {
+
+    String PENDING_REMINDER_FIELDS = "SELECT new com.utmn.fms.roadmap.repository.PendingReminder(" +
+            "r.id, m.id, r.templateId, r.parameters, r.executionDate) FROM Recommendation r JOIN r.roadmap m ";
+
+    String NOT_DELIVERED = "NOT EXISTS (SELECT 1 FROM ReminderDelivery d WHERE d.recommendationId = r.id) ";
+
+    // keyset-просмотр по индексу (execution_date, id): читается только диапазон сроков после курсора
+    @Query(PENDING_REMINDER_FIELDS +
+            "WHERE r.executionDate BETWEEN :from AND :to " +
+            "AND (r.executionDate, r.id) > (:afterDate, :afterId) " +
+            "AND " + NOT_DELIVERED +
+            "AND " + RoadmapRepository.IS_CURRENT_ROADMAP +
+            "ORDER BY r.executionDate, r.id")
+    List<PendingReminder> findPending(@Param("from") LocalDate from,
+                                      @Param("to") LocalDate to,
+                                      @Param("afterDate") LocalDate afterDate,
+                                      @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    @Query(PENDING_REMINDER_FIELDS +
+            "WHERE m.id IN :roadmapIds AND r.executionDate BETWEEN :from AND :to " +
+            "AND " + NOT_DELIVERED +
+            "AND " + RoadmapRepository.IS_CURRENT_ROADMAP)
+    List<PendingReminder> findPendingByRoadmapIds(@Param("roadmapIds") Collection<Long> roadmapIds,
+                                                  @Param("from") LocalDate from,
+                                                  @Param("to") LocalDate to);
+
+    // путеводитель мог смениться, пока напоминание ждало в колесе таймеров
+    @Query("SELECT m.id FROM Roadmap m WHERE m.id IN :roadmapIds AND " + RoadmapRepository.IS_CURRENT_ROADMAP)
+    List<Long> findCurrentRoadmapIds(@Param("roadmapIds") Collection<Long> roadmapIds);
+}
@@ -0,0 +1,15 @@
+package com.utmn.fms.roadmap.repository;
+
+/**
+ * Действующий путеводитель заявителя анкеты: по какой анкете и входным данным он построен.
+ */
+public interface RoadmapInputHash {
+
+    Long getSurveyId();
+
+    Long getRoadmapId();
+
+    Long getRoadmapSurveyId();
+
+    String getInputHash();
+}
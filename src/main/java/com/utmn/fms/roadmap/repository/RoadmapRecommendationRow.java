@@ -0,0 +1,17 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Строка проекции "путеводитель + рекомендация" для чтения без загрузки сущностей.
+ * Для путеводителя без рекомендаций поля рекомендации равны {@code null}.
+ */
+public record RoadmapRecommendationRow(
+        Long roadmapId,
+        LocalDate createdDate,
+        Long recommendationId,
+        Long templateId,
+        String parameters,
+        LocalDate executionDate,
+        Integer displayOrder) {
+}
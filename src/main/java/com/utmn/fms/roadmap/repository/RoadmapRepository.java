@@ -1,17 +1,114 @@
 package com.utmn.fms.roadmap.repository;
 
+import com.utmn.fms.roadmap.dto.RoadmapSummaryDTO;
 import com.utmn.fms.roadmap.entity.Roadmap;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface RoadmapRepository extends JpaRepository<Roadmap, Long> {
 
-    @Query("SELECT r FROM Roadmap r LEFT JOIN FETCH r.recommendations WHERE r.id = (SELECT MAX(r2.id) FROM Roadmap r2)")
-    Optional<Roadmap> findCurrentRoadmap();
+    // путеводитель m — действующий, то есть последний у своего заявителя (точечный поиск по idx_roadmap_applicant);
+    // прежние путеводители остаются в истории, но их сроки уже не актуальны
+    String IS_CURRENT_ROADMAP = "m.id = (SELECT MAX(c.id) FROM Roadmap c WHERE c.applicantId = m.applicantId) ";
+
+    // текущий путеводитель заявителя — последний по индексу idx_roadmap_applicant
+    @Query("SELECT new com.utmn.fms.roadmap.repository.RoadmapRecommendationRow(" +
+            "m.id, m.createdDate, r.id, r.templateId, r.parameters, r.executionDate, r.displayOrder) " +
+            "FROM Roadmap m LEFT JOIN m.recommendations r " +
+            "WHERE m.id = (SELECT MAX(m2.id) FROM Roadmap m2 WHERE m2.applicantId = :applicantId) " +
+            "ORDER BY r.displayOrder")
+    List<RoadmapRecommendationRow> findCurrentRoadmapRows(@Param("applicantId") UUID applicantId);
+
+    // путеводитель можно вернуть повторно, только если он по-прежнему действующий
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("SELECT r FROM Roadmap r LEFT JOIN FETCH r.recommendations " +
+            "WHERE r.id = :id AND r.survey.id = :surveyId AND r.inputHash = :inputHash")
+    Optional<Roadmap> findByIdAndSurveyIdAndInputHash(@Param("id") Long id,
+                                                      @Param("surveyId") Long surveyId,
+                                                      @Param("inputHash") String inputHash);
+
+    // действующие путеводители заявителей перечисленных анкет
+    @Query("SELECT s.id AS surveyId, m.id AS roadmapId, m.survey.id AS roadmapSurveyId, m.inputHash AS inputHash " +
+            "FROM Survey s, Roadmap m WHERE s.id IN :surveyIds AND m.applicantId = s.applicantId AND " +
+            IS_CURRENT_ROADMAP)
+    List<RoadmapInputHash> findCurrentInputHashes(@Param("surveyIds") Collection<Long> surveyIds);
+
+    @Query("SELECT MAX(r.id) FROM Roadmap r WHERE r.applicantId = :applicantId")
+    Long findCurrentRoadmapId(@Param("applicantId") UUID applicantId);
+
+    // только по индексу ограничения uk_roadmap_survey_input
+    @Query("SELECT MAX(r.id) FROM Roadmap r WHERE r.survey.id = :surveyId")
+    Long findLatestIdBySurveyId(@Param("surveyId") Long surveyId);
 
     Optional<Roadmap> findBySurveyId(Long surveyId);
+
+    // массовая выгрузка: строки читаются курсором порциями по fetch size, а не всем результатом сразу
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.utmn.fms.roadmap.repository.RoadmapRecommendationRow(" +
+            "m.id, m.createdDate, r.id, r.templateId, r.parameters, r.executionDate, r.displayOrder) " +
+            "FROM Roadmap m LEFT JOIN m.recommendations r ORDER BY m.id, r.displayOrder")
+    Stream<RoadmapRecommendationRow> streamAllRoadmapRows();
+
+    // действующие путеводители: последний по каждому заявителю
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.utmn.fms.roadmap.repository.ActiveRoadmapRow(" +
+            "m.applicantId, m.id, m.createdDate, r.id, r.templateId, r.parameters, r.executionDate, r.displayOrder) " +
+            "FROM Roadmap m LEFT JOIN m.recommendations r " +
+            "WHERE m.id IN (SELECT MAX(m2.id) FROM Roadmap m2 GROUP BY m2.applicantId) " +
+            "ORDER BY m.id, r.displayOrder")
+    Stream<ActiveRoadmapRow> streamActiveRoadmapRows();
+
+    @Query("SELECT new com.utmn.fms.roadmap.repository.RoadmapRecommendationRow(" +
+            "m.id, m.createdDate, r.id, r.templateId, r.parameters, r.executionDate, r.displayOrder) " +
+            "FROM Roadmap m LEFT JOIN m.recommendations r WHERE m.id = :id AND m.applicantId = :applicantId " +
+            "ORDER BY r.displayOrder")
+    List<RoadmapRecommendationRow> findRoadmapRows(@Param("id") Long id, @Param("applicantId") UUID applicantId);
+
+    boolean existsByIdAndApplicantId(Long id, UUID applicantId);
+
+    // ближайшие сроки действующих путеводителей — keyset-пагинация по индексу (execution_date, id)
+    @Query("SELECT new com.utmn.fms.roadmap.repository.DueRecommendationRow(" +
+            "r.id, m.id, s.id, s.fullName, s.citizenship, r.templateId, r.executionDate) " +
+            "FROM Recommendation r JOIN r.roadmap m JOIN m.survey s " +
+            "WHERE r.executionDate BETWEEN :from AND :to AND (r.executionDate, r.id) > (:afterDate, :afterId) " +
+            "AND " + IS_CURRENT_ROADMAP +
+            "AND (:ruleId IS NULL OR r.templateId IN " +
+            "(SELECT t.id FROM RecommendationTemplate t WHERE t.ruleId = :ruleId)) " +
+            "AND (:citizenship IS NULL OR s.citizenship = :citizenship) " +
+            "ORDER BY r.executionDate, r.id")
+    List<DueRecommendationRow> findDue(@Param("from") LocalDate from,
+                                       @Param("to") LocalDate to,
+                                       @Param("afterDate") LocalDate afterDate,
+                                       @Param("afterId") Long afterId,
+                                       @Param("ruleId") String ruleId,
+                                       @Param("citizenship") String citizenship,
+                                       Limit limit);
+
+    // сроки перечисленных путеводителей — тех, что перестают быть действующими
+    @Query("SELECT new com.utmn.fms.roadmap.repository.DeadlineCount(" +
+            "r.executionDate, r.templateId, s.citizenship, COUNT(r)) " +
+            "FROM Recommendation r JOIN r.roadmap m JOIN m.survey s WHERE m.id IN :roadmapIds " +
+            "GROUP BY r.executionDate, r.templateId, s.citizenship")
+    List<DeadlineCount> countDeadlines(@Param("roadmapIds") Collection<Long> roadmapIds);
+
+    // история — keyset-пагинация по индексу idx_roadmap_applicant; рекомендации только считаются
+    @Query("SELECT new com.utmn.fms.roadmap.dto.RoadmapSummaryDTO(r.id, r.survey.id, r.createdDate, SIZE(r.recommendations)) " +
+            "FROM Roadmap r WHERE r.applicantId = :applicantId AND r.id < :id ORDER BY r.id DESC")
+    List<RoadmapSummaryDTO> findHistory(@Param("applicantId") UUID applicantId, @Param("id") Long id, Limit limit);
 }
\ No newline at end of file
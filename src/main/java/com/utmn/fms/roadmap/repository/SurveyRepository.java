@@ -1,18 +1,83 @@
 package com.utmn.fms.roadmap.repository;
 
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.SurveySummaryDTO;
 import com.utmn.fms.roadmap.entity.Survey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
-public interface SurveyRepository extends JpaRepository<Survey, Long> {
+public interface SurveyRepository extends JpaRepository<Survey, Long>, SurveyRepositoryCustom {
 
-    @Query("SELECT s FROM Survey s WHERE s.isDraft = true ORDER BY s.updatedAt DESC LIMIT 1")
-    Optional<Survey> findLastDraft();
+    // порядок совпадает с конструктором SurveyDTO
+    String SURVEY_DTO_FIELDS = "s.id, s.fullName, s.citizenship, s.entryDate, s.purposeOfStay, s.durationOfStay, " +
+            "s.hasFingerprints, s.hasMedicalExam, s.isDraft, s.isValid, s.version";
 
-    @Query("SELECT s FROM Survey s WHERE s.isValid = true ORDER BY s.createdAt DESC LIMIT 1")
-    Optional<Survey> findLastValidSurvey();
+    // порядок совпадает с конструктором SurveySummaryDTO
+    String SURVEY_SUMMARY_FIELDS = "s.id, s.fullName, s.citizenship, s.version, s.isDraft, s.isValid, " +
+            "s.createdAt, s.updatedAt";
+
+    // "последние" анкеты заявителя — точечный поиск по idx_survey_applicant_draft и idx_survey_applicant_valid;
+    // кэш запросов не используется: запись любого заявителя сбрасывала бы его целиком
+    @Query("SELECT new com.utmn.fms.roadmap.dto.SurveyDTO(" + SURVEY_DTO_FIELDS + ") FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isDraft = true ORDER BY s.updatedAt DESC, s.id DESC LIMIT 1")
+    Optional<SurveyDTO> findLastDraftDTO(@Param("applicantId") UUID applicantId);
+
+    @Query("SELECT new com.utmn.fms.roadmap.dto.SurveyDTO(" + SURVEY_DTO_FIELDS + ") FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isValid = true ORDER BY s.createdAt DESC, s.id DESC LIMIT 1")
+    Optional<SurveyDTO> findLastValidSurveyDTO(@Param("applicantId") UUID applicantId);
+
+    // валидаторы условного GET читаются только из индексов
+    @Query("SELECT new com.utmn.fms.roadmap.repository.SurveyStamp(s.id, s.updatedAt) FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isDraft = true ORDER BY s.updatedAt DESC, s.id DESC LIMIT 1")
+    Optional<SurveyStamp> findLastDraftStamp(@Param("applicantId") UUID applicantId);
+
+    @Query("SELECT s.id FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isValid = true ORDER BY s.createdAt DESC, s.id DESC LIMIT 1")
+    Optional<Long> findLastValidSurveyId(@Param("applicantId") UUID applicantId);
+
+    boolean existsByIdAndApplicantId(Long id, UUID applicantId);
+
+    /**
+     * Анкета, от которой создается новая версия: при фиксации транзакции ее lock_version
+     * увеличивается, поэтому параллельное подтверждение той же анкеты завершится конфликтом.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("SELECT s FROM Survey s WHERE s.id = :id")
+    Optional<Survey> findForNewVersionById(@Param("id") Long id);
+
+    @Query("SELECT MAX(s.version) FROM Survey s WHERE s.draftId = :draftId")
+    Integer findMaxVersionByDraftId(@Param("draftId") Long draftId);
+
+    // история — keyset-пагинация по индексам idx_survey_applicant_valid и idx_survey_applicant_draft
+    @Query("SELECT new com.utmn.fms.roadmap.dto.SurveySummaryDTO(" + SURVEY_SUMMARY_FIELDS + ") FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isValid = true AND (s.createdAt, s.id) < (:createdAt, :id) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SurveySummaryDTO> findValidHistory(@Param("applicantId") UUID applicantId,
+                                            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                            Limit limit);
+
+    @Query("SELECT new com.utmn.fms.roadmap.dto.SurveySummaryDTO(" + SURVEY_SUMMARY_FIELDS + ") FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isDraft = true AND (s.updatedAt, s.id) < (:updatedAt, :id) " +
+            "ORDER BY s.updatedAt DESC, s.id DESC")
+    List<SurveySummaryDTO> findDraftHistory(@Param("applicantId") UUID applicantId,
+                                            @Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id,
+                                            Limit limit);
+
+    @Query("SELECT new com.utmn.fms.roadmap.dto.SurveyDTO(" + SURVEY_DTO_FIELDS + ") FROM Survey s WHERE s.id = :id")
+    Optional<SurveyDTO> findDTOById(@Param("id") Long id);
+
+    @Query("SELECT s FROM Survey s " +
+            "WHERE s.applicantId = :applicantId AND s.isValid = true ORDER BY s.createdAt DESC, s.id DESC LIMIT 1")
+    Optional<Survey> findLastValidSurvey(@Param("applicantId") UUID applicantId);
 }
\ No newline at end of file
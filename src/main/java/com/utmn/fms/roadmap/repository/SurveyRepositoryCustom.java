@@ -0,0 +1,13 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface SurveyRepositoryCustom {
+
+    /**
+     * Обновляет у черновика заявителя только переданные столбцы (и updated_at) одним UPDATE без
+     * загрузки сущности. Возвращает число измененных строк: 0, если черновика нет.
+     */
+    int updateDraftFields(Long id, UUID applicantId, Map<String, Object> changes);
+}
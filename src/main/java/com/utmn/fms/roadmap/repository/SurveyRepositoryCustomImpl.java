@@ -0,0 +1,37 @@
+package com.utmn.fms.roadmap.repository;
+
+import com.utmn.fms.roadmap.entity.Survey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class SurveyRepositoryCustomImpl implements SurveyRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public int updateDraftFields(Long id, UUID applicantId, Map<String, Object> changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Survey> update = cb.createCriteriaUpdate(Survey.class);
+        Root<Survey> survey = update.from(Survey.class);
+
+        changes.forEach((attribute, value) -> update.set(survey.get(attribute), value));
+        // updated_at определяет "последний черновик"
+        update.set(survey.<LocalDateTime>get("updatedAt"), LocalDateTime.now());
+        // массовый UPDATE не увеличивает @Version сам
+        Path<Long> lockVersion = survey.get("lockVersion");
+        update.set(lockVersion, cb.sum(lockVersion, 1L));
+        update.where(cb.equal(survey.get("id"), id), cb.equal(survey.get("applicantId"), applicantId),
+                cb.isTrue(survey.get("isDraft")));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
@@ -0,0 +1,9 @@
+package com.utmn.fms.roadmap.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id и время изменения анкеты — валидатор условного GET без чтения самой анкеты.
+ */
+public record SurveyStamp(Long id, LocalDateTime updatedAt) {
+}
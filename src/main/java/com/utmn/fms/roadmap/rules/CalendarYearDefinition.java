@@ -0,0 +1,26 @@
+package com.utmn.fms.roadmap.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CalendarYearDefinition {
+
+    private Integer year;
+
+    // нерабочие праздничные дни и дни, на которые перенесены выходные, в формате MM-dd
+    @Builder.Default
+    private List<String> holidays = new ArrayList<>();
+
+    // выходные дни, объявленные рабочими, в формате MM-dd
+    @Builder.Default
+    private List<String> workingDays = new ArrayList<>();
+}
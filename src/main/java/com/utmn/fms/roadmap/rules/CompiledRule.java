@@ -0,0 +1,69 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.time.LocalDate;
+
+/**
+ * Правило в готовом к вычислению виде: условия, шаблон описания и смещение даты.
+ */
+final class CompiledRule {
+
+    private final RuleTemplate template;
+    private final DescriptionTemplate description;
+    private final DateAnchor anchor;
+    private final int offsetDays;
+    private final OffsetUnit offsetUnit;
+    private final HolidayShift holidayShift;
+    private final RuleCondition[] conditions;
+
+    CompiledRule(RuleTemplate template, DescriptionTemplate description,
+                 DateAnchor anchor, int offsetDays, OffsetUnit offsetUnit, HolidayShift holidayShift,
+                 RuleCondition[] conditions) {
+        this.template = template;
+        this.description = description;
+        this.anchor = anchor;
+        this.offsetDays = offsetDays;
+        this.offsetUnit = offsetUnit;
+        this.holidayShift = holidayShift;
+        this.conditions = conditions;
+    }
+
+    boolean matches(RuleInput input) {
+        for (RuleCondition condition : conditions) {
+            if (!condition.test(input)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    RuleResult apply(LocalDate entryDate, LocalDate exitDate, WorkingCalendar calendar, int displayOrder) {
+        return new RuleResult(
+                template.ruleId(),
+                template.key(),
+                template.title(),
+                description.render(entryDate, exitDate),
+                description.parameters(entryDate, exitDate),
+                executionDate(anchor.select(entryDate, exitDate), calendar),
+                displayOrder);
+    }
+
+    private LocalDate executionDate(LocalDate anchorDate, WorkingCalendar calendar) {
+        if (offsetUnit == OffsetUnit.WORKING_DAYS) {
+            return calendar.plusWorkingDays(anchorDate, offsetDays);
+        }
+        LocalDate date = anchorDate.plusDays(offsetDays);
+        return switch (holidayShift) {
+            case FORWARD -> calendar.nextWorkingDay(date);
+            case BACKWARD -> calendar.previousWorkingDay(date);
+            case NONE -> date;
+        };
+    }
+
+    String getId() {
+        return template.ruleId();
+    }
+
+    RuleTemplate getTemplate() {
+        return template;
+    }
+}
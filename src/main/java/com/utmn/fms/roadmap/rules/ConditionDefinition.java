@@ -0,0 +1,20 @@
+package com.utmn.fms.roadmap.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConditionDefinition {
+
+    private RuleField field;
+    private RuleOperator operator;
+    private Integer value;
+    private List<String> values;
+}
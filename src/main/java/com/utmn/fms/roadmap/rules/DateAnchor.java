@@ -0,0 +1,36 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.time.LocalDate;
+
+/**
+ * Опорная дата, от которой отсчитывается срок выполнения рекомендации.
+ * Имя плейсхолдера используется в шаблонах описаний: {@code {entryDate}}, {@code {exitDate}}.
+ */
+public enum DateAnchor {
+
+    ENTRY_DATE("entryDate"),
+    EXIT_DATE("exitDate");
+
+    private final String placeholder;
+
+    DateAnchor(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    LocalDate select(LocalDate entryDate, LocalDate exitDate) {
+        return this == ENTRY_DATE ? entryDate : exitDate;
+    }
+
+    static DateAnchor fromPlaceholder(String placeholder) {
+        for (DateAnchor anchor : values()) {
+            if (anchor.placeholder.equals(placeholder)) {
+                return anchor;
+            }
+        }
+        throw new IllegalArgumentException("Unknown placeholder: {" + placeholder + "}");
+    }
+}
@@ -0,0 +1,101 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Шаблон описания, заранее разбитый на литералы и плейсхолдеры дат.
+ * Описания без плейсхолдеров возвращаются как есть, без копирования.
+ * <p>
+ * Значения плейсхолдеров хранятся вместе с рекомендацией строкой {@link #parameters},
+ * по порядку их появления в тексте через {@code ;}, например {@code 2025-06-29}.
+ */
+public final class DescriptionTemplate {
+
+    private static final char PARAMETER_SEPARATOR = ';';
+
+    private final String constant;
+    private final String[] literals;
+    private final DateAnchor[] parameters;
+    private final int literalLength;
+
+    private DescriptionTemplate(String constant, String[] literals, DateAnchor[] parameters, int literalLength) {
+        this.constant = constant;
+        this.literals = literals;
+        this.parameters = parameters;
+        this.literalLength = literalLength;
+    }
+
+    public static DescriptionTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<DateAnchor> parameters = new ArrayList<>();
+        int position = 0;
+        int start;
+        while ((start = text.indexOf('{', position)) >= 0) {
+            int end = text.indexOf('}', start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in: " + text);
+            }
+            literals.add(text.substring(position, start));
+            parameters.add(DateAnchor.fromPlaceholder(text.substring(start + 1, end)));
+            position = end + 1;
+        }
+        if (parameters.isEmpty()) {
+            return new DescriptionTemplate(text, null, null, text.length());
+        }
+        literals.add(text.substring(position));
+        int literalLength = literals.stream().mapToInt(String::length).sum();
+        return new DescriptionTemplate(null, literals.toArray(String[]::new),
+                parameters.toArray(DateAnchor[]::new), literalLength);
+    }
+
+    String render(LocalDate entryDate, LocalDate exitDate) {
+        if (constant != null) {
+            return constant;
+        }
+        // ISO-дата всегда занимает 10 символов
+        StringBuilder sb = new StringBuilder(literalLength + parameters.length * 10);
+        for (int i = 0; i < parameters.length; i++) {
+            sb.append(literals[i]).append(parameters[i].select(entryDate, exitDate));
+        }
+        return sb.append(literals[parameters.length]).toString();
+    }
+
+    String parameters(LocalDate entryDate, LocalDate exitDate) {
+        if (constant != null) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(parameters.length * 11);
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                sb.append(PARAMETER_SEPARATOR);
+            }
+            sb.append(parameters[i].select(entryDate, exitDate));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Собирает текст из сохраненных значений плейсхолдеров.
+     */
+    public String render(String values) {
+        if (constant != null) {
+            return constant;
+        }
+        StringBuilder sb = new StringBuilder(literalLength + (values != null ? values.length() : 0));
+        int position = 0;
+        for (int i = 0; i < parameters.length; i++) {
+            sb.append(literals[i]);
+            if (values != null && position <= values.length()) {
+                int end = values.indexOf(PARAMETER_SEPARATOR, position);
+                if (end < 0) {
+                    end = values.length();
+                }
+                sb.append(values, position, end);
+                position = end + 1;
+            }
+        }
+        return sb.append(literals[parameters.length]).toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Перенос срока в календарных днях, выпавшего на нерабочий день.
+ */
+public enum HolidayShift {
+
+    /**
+     * На ближайший следующий рабочий день — для сроков «не позднее» после опорной даты.
+     */
+    FORWARD,
+
+    /**
+     * На ближайший предыдущий рабочий день — для сроков, которые нельзя сдвигать за опорную дату
+     * (например, напоминание о выезде до даты выезда).
+     */
+    BACKWARD,
+
+    /**
+     * Без переноса.
+     */
+    NONE
+}
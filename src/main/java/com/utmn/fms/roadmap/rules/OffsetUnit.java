@@ -0,0 +1,18 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Единица смещения срока рекомендации относительно опорной даты.
+ */
+public enum OffsetUnit {
+
+    /**
+     * Календарные дни; срок, выпавший на нерабочий день, переносится на ближайший рабочий
+     * в направлении {@link HolidayShift}.
+     */
+    CALENDAR_DAYS,
+
+    /**
+     * Рабочие дни по производственному календарю.
+     */
+    WORKING_DAYS
+}
@@ -0,0 +1,165 @@
+package com.utmn.fms.roadmap.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.event.RuleSetReloadedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Загружает таблицу правил и производственный календарь при старте приложения
+ * и вычисляет рекомендации по анкете.
+ * <p>
+ * Если правила и календарь лежат в файловой системе, изменения файлов подхватываются без
+ * перезапуска: новая таблица компилируется целиком и подменяет текущую одной атомарной
+ * операцией. Вычисления, уже получившие прежнюю таблицу, завершаются на ней. Файл с ошибкой
+ * не применяется — продолжает работать последняя корректная таблица.
+ */
+@Component
+@Slf4j
+public class RecommendationRuleEngine implements MeterBinder {
+
+    private static final long NOT_WATCHED = -1;
+
+    private final ObjectMapper objectMapper;
+    private final Resource location;
+    private final Resource calendarLocation;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicReference<RuleSet> ruleSet = new AtomicReference<>();
+    // время изменения файлов, по которым построена последняя попытка загрузки
+    private volatile long loadedModified;
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failedReloads = new LongAdder();
+
+    public RecommendationRuleEngine(
+            ObjectMapper objectMapper,
+            @Value("${roadmap.rules.location:classpath:rules/recommendation-rules.json}") Resource location,
+            @Value("${roadmap.calendar.location:classpath:rules/production-calendar.json}") Resource calendarLocation,
+            ApplicationEventPublisher eventPublisher) {
+        this.objectMapper = objectMapper;
+        this.location = location;
+        this.calendarLocation = calendarLocation;
+        this.eventPublisher = eventPublisher;
+        this.loadedModified = lastModified();
+        this.ruleSet.set(load(objectMapper, location, calendarLocation));
+        log.info("Loaded {} recommendation rules (version {}, checksum {}) from {} with calendar {}",
+                getRuleSet().size(), getRuleSet().getVersion(), getRuleSet().getChecksum(),
+                location.getDescription(), calendarLocation.getDescription());
+    }
+
+    public List<RuleResult> evaluate(Survey survey) {
+        return getRuleSet().evaluate(survey);
+    }
+
+    public List<RuleResult> evaluate(RuleInput input) {
+        return getRuleSet().evaluate(input);
+    }
+
+    /**
+     * Текущая таблица правил. Для согласованного результата вызывающий код берет ее
+     * один раз и использует для всех вычислений одного путеводителя.
+     */
+    public RuleSet getRuleSet() {
+        return ruleSet.get();
+    }
+
+    @Scheduled(fixedDelayString = "${roadmap.rules.reload-interval:10s}",
+            initialDelayString = "${roadmap.rules.reload-interval:10s}")
+    public void reloadIfModified() {
+        long modified = lastModified();
+        if (modified == NOT_WATCHED || modified == loadedModified) {
+            return;
+        }
+        // запоминаем и неудачную попытку: тот же файл не перечитывается, ждем следующего изменения
+        loadedModified = modified;
+        reload();
+    }
+
+    /**
+     * Перечитывает правила и календарь. Возвращает {@code true}, если таблица заменена.
+     */
+    public synchronized boolean reload() {
+        RuleSet current = getRuleSet();
+        RuleSet candidate;
+        try {
+            candidate = load(objectMapper, location, calendarLocation);
+        } catch (RuntimeException e) {
+            failedReloads.increment();
+            log.error("Invalid recommendation rules in {}, keeping version {} (checksum {})",
+                    location.getDescription(), current.getVersion(), current.getChecksum(), e);
+            return false;
+        }
+        if (candidate.getChecksum().equals(current.getChecksum())) {
+            return false;
+        }
+
+        try {
+            // слушатели (справочник шаблонов) готовятся до замены таблицы
+            eventPublisher.publishEvent(new RuleSetReloadedEvent(candidate));
+        } catch (RuntimeException e) {
+            failedReloads.increment();
+            log.error("Cannot apply recommendation rules version {}, keeping version {}",
+                    candidate.getVersion(), current.getVersion(), e);
+            return false;
+        }
+        ruleSet.set(candidate);
+        reloads.increment();
+        log.info("Reloaded {} recommendation rules: version {} -> {}, checksum {}",
+                candidate.size(), current.getVersion(), candidate.getVersion(), candidate.getChecksum());
+        return true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("roadmap.rules.version", ruleSet, ref -> ref.get().getVersion())
+                .register(registry);
+        FunctionCounter.builder("roadmap.rules.reloads", reloads, LongAdder::sum)
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("roadmap.rules.reloads", failedReloads, LongAdder::sum)
+                .tag("result", "failure")
+                .register(registry);
+    }
+
+    private long lastModified() {
+        if (!location.isFile() || !calendarLocation.isFile()) {
+            return NOT_WATCHED;
+        }
+        try {
+            return Math.max(location.lastModified(), calendarLocation.lastModified());
+        } catch (IOException e) {
+            return NOT_WATCHED;
+        }
+    }
+
+    static RuleSet load(ObjectMapper objectMapper, Resource location, Resource calendarLocation) {
+        return RuleSetCompiler.compile(
+                read(objectMapper, location, RuleSetDefinition.class),
+                WorkingCalendar.compile(read(objectMapper, calendarLocation, WorkingCalendarDefinition.class)));
+    }
+
+    private static <T> T read(ObjectMapper objectMapper, Resource location, Class<T> type) {
+        try (InputStream in = location.getInputStream()) {
+            return objectMapper.readValue(in, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read " + location.getDescription(), e);
+        }
+    }
+}
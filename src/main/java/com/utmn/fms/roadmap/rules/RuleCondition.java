@@ -0,0 +1,10 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Скомпилированное условие правила.
+ */
+@FunctionalInterface
+interface RuleCondition {
+
+    boolean test(RuleInput input);
+}
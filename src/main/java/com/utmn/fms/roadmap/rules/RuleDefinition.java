@@ -0,0 +1,31 @@
+package com.utmn.fms.roadmap.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RuleDefinition {
+
+    private String id;
+    private String title;
+    private String description;
+    private DateAnchor anchor;
+    private Integer offsetDays;
+
+    // по умолчанию срок считается в календарных днях
+    private OffsetUnit offsetUnit;
+
+    // по умолчанию срок с нерабочего дня переносится вперед; только для календарных дней
+    private HolidayShift holidayShift;
+
+    @Builder.Default
+    private List<ConditionDefinition> conditions = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Поля анкеты, по которым могут строиться условия правил.
+ */
+public enum RuleField {
+
+    HAS_FINGERPRINTS(Type.BOOLEAN),
+    HAS_MEDICAL_EXAM(Type.BOOLEAN),
+    DURATION_OF_STAY(Type.INTEGER),
+    PURPOSE_OF_STAY(Type.STRING),
+    CITIZENSHIP(Type.STRING);
+
+    public enum Type {
+        BOOLEAN,
+        INTEGER,
+        STRING
+    }
+
+    private final Type type;
+
+    RuleField(Type type) {
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
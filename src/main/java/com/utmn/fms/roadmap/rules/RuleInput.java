@@ -0,0 +1,42 @@
+package com.utmn.fms.roadmap.rules;
+
+import com.utmn.fms.roadmap.entity.Survey;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Входные данные правил. Строковые поля нормализуются один раз при создании,
+ * поэтому условия сравнивают их с заранее нормализованными значениями без equalsIgnoreCase.
+ */
+public record RuleInput(
+        LocalDate entryDate,
+        String purposeOfStay,
+        String citizenship,
+        int durationOfStay,
+        boolean hasFingerprints,
+        boolean hasMedicalExam) {
+
+    public RuleInput {
+        purposeOfStay = normalize(purposeOfStay);
+        citizenship = normalize(citizenship);
+    }
+
+    public static RuleInput from(Survey survey) {
+        return new RuleInput(
+                survey.getEntryDate(),
+                survey.getPurposeOfStay(),
+                survey.getCitizenship(),
+                survey.getDurationOfStay(),
+                survey.getHasFingerprints(),
+                survey.getHasMedicalExam());
+    }
+
+    public LocalDate exitDate() {
+        return entryDate.plusDays(durationOfStay);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
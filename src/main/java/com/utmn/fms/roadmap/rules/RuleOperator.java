@@ -0,0 +1,17 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Операторы условий. {@code IS_TRUE}/{@code IS_FALSE} применимы к логическим полям,
+ * {@code EQ}/{@code GT}/{@code GTE}/{@code LT}/{@code LTE} — к числовым (значение в {@code value}),
+ * {@code EQ}/{@code IN} — к строковым (значения в {@code values}, сравнение без учета регистра).
+ */
+public enum RuleOperator {
+    IS_TRUE,
+    IS_FALSE,
+    EQ,
+    GT,
+    GTE,
+    LT,
+    LTE,
+    IN
+}
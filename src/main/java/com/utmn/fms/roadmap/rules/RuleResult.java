@@ -0,0 +1,18 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.time.LocalDate;
+
+/**
+ * Результат срабатывания правила для конкретной анкеты.
+ * {@code parameters} — значения плейсхолдеров описания (см. {@link DescriptionTemplate#render(String)}),
+ * {@code null} для описаний без плейсхолдеров.
+ */
+public record RuleResult(
+        String ruleId,
+        String templateKey,
+        String title,
+        String description,
+        String parameters,
+        LocalDate executionDate,
+        int displayOrder) {
+}
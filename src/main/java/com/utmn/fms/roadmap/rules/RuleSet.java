@@ -0,0 +1,98 @@
+package com.utmn.fms.roadmap.rules;
+
+import com.utmn.fms.roadmap.entity.Survey;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Неизменяемая скомпилированная таблица правил. Вычисление не зависит от состояния
+ * и может выполняться из любого числа потоков.
+ */
+public final class RuleSet {
+
+    private final int version;
+    private final String checksum;
+    private final CompiledRule[] rules;
+    private final WorkingCalendar calendar;
+
+    RuleSet(int version, String checksum, CompiledRule[] rules, WorkingCalendar calendar) {
+        this.version = version;
+        this.checksum = checksum;
+        this.rules = rules;
+        this.calendar = calendar;
+    }
+
+    public List<RuleResult> evaluate(Survey survey) {
+        return evaluate(RuleInput.from(survey));
+    }
+
+    public List<RuleResult> evaluate(RuleInput input) {
+        LocalDate entryDate = input.entryDate();
+        LocalDate exitDate = input.exitDate();
+        List<RuleResult> results = new ArrayList<>(rules.length);
+        int order = 1;
+        for (CompiledRule rule : rules) {
+            if (rule.matches(input)) {
+                results.add(rule.apply(entryDate, exitDate, calendar, order++));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Детерминированный хэш всех входных данных правил и версии таблицы правил:
+     * одинаковый хэш гарантирует одинаковый набор рекомендаций.
+     */
+    public String inputHash(RuleInput input) {
+        String key = version + "|" + checksum
+                + "|" + input.entryDate()
+                + "|" + input.purposeOfStay()
+                + "|" + input.citizenship()
+                + "|" + input.durationOfStay()
+                + "|" + input.hasFingerprints()
+                + "|" + input.hasMedicalExam();
+        return sha256(key);
+    }
+
+    static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Тексты всех правил таблицы для справочника шаблонов рекомендаций.
+     */
+    public List<RuleTemplate> templates() {
+        List<RuleTemplate> templates = new ArrayList<>(rules.length);
+        for (CompiledRule rule : rules) {
+            templates.add(rule.getTemplate());
+        }
+        return templates;
+    }
+
+    public WorkingCalendar getCalendar() {
+        return calendar;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public int size() {
+        return rules.length;
+    }
+}
@@ -0,0 +1,169 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Проверяет описание правил и компилирует его в {@link RuleSet}.
+ * Любая ошибка в описании приводит к {@link IllegalArgumentException} с указанием правила.
+ */
+public final class RuleSetCompiler {
+
+    private static final String DEFAULT_LOCALE = "ru";
+
+    private RuleSetCompiler() {
+    }
+
+    public static RuleSet compile(RuleSetDefinition definition, WorkingCalendar calendar) {
+        if (definition == null || definition.getRules() == null || definition.getRules().isEmpty()) {
+            throw new IllegalArgumentException("Rule set is empty");
+        }
+
+        String locale = isBlank(definition.getLocale()) ? DEFAULT_LOCALE : definition.getLocale();
+        Set<String> ids = new HashSet<>();
+        CompiledRule[] rules = new CompiledRule[definition.getRules().size()];
+        for (int i = 0; i < rules.length; i++) {
+            RuleDefinition rule = definition.getRules().get(i);
+            if (rule == null || isBlank(rule.getId())) {
+                throw new IllegalArgumentException("Rule #" + (i + 1) + " has no id");
+            }
+            if (!ids.add(rule.getId())) {
+                throw new IllegalArgumentException("Duplicate rule id: " + rule.getId());
+            }
+            try {
+                rules[i] = compileRule(rule, locale);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid rule " + rule.getId() + ": " + e.getMessage(), e);
+            }
+        }
+
+        int version = definition.getVersion() != null ? definition.getVersion() : 0;
+        // сроки зависят и от календаря: его изменение тоже меняет контрольную сумму
+        String checksum = RuleSet.sha256(definition.toString() + "\n" + calendar.getChecksum());
+        return new RuleSet(version, checksum, rules, calendar);
+    }
+
+    private static CompiledRule compileRule(RuleDefinition rule, String locale) {
+        if (isBlank(rule.getTitle())) {
+            throw new IllegalArgumentException("title is required");
+        }
+        if (isBlank(rule.getDescription())) {
+            throw new IllegalArgumentException("description is required");
+        }
+        if (rule.getOffsetDays() == null) {
+            throw new IllegalArgumentException("offsetDays is required");
+        }
+        OffsetUnit offsetUnit = rule.getOffsetUnit() != null ? rule.getOffsetUnit() : OffsetUnit.CALENDAR_DAYS;
+        if (rule.getHolidayShift() != null && offsetUnit != OffsetUnit.CALENDAR_DAYS) {
+            throw new IllegalArgumentException("holidayShift applies only to CALENDAR_DAYS");
+        }
+
+        List<ConditionDefinition> definitions = rule.getConditions() != null ? rule.getConditions() : List.of();
+        RuleCondition[] conditions = new RuleCondition[definitions.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = compileCondition(definitions.get(i));
+        }
+
+        // ключ шаблона зависит от содержимого: измененный текст получает новую запись в справочнике
+        RuleTemplate template = new RuleTemplate(
+                RuleSet.sha256(locale + "\n" + rule.getId() + "\n" + rule.getTitle() + "\n" + rule.getDescription()),
+                rule.getId(),
+                locale,
+                rule.getTitle(),
+                rule.getDescription());
+
+        return new CompiledRule(
+                template,
+                DescriptionTemplate.compile(rule.getDescription()),
+                rule.getAnchor() != null ? rule.getAnchor() : DateAnchor.ENTRY_DATE,
+                rule.getOffsetDays(),
+                offsetUnit,
+                rule.getHolidayShift() != null ? rule.getHolidayShift() : HolidayShift.FORWARD,
+                conditions);
+    }
+
+    private static RuleCondition compileCondition(ConditionDefinition condition) {
+        if (condition == null || condition.getField() == null || condition.getOperator() == null) {
+            throw new IllegalArgumentException("condition requires field and operator");
+        }
+        RuleField field = condition.getField();
+        return switch (field.getType()) {
+            case BOOLEAN -> compileBoolean(field, condition.getOperator());
+            case INTEGER -> compileInteger(field, condition);
+            case STRING -> compileString(field, condition);
+        };
+    }
+
+    private static RuleCondition compileBoolean(RuleField field, RuleOperator operator) {
+        Predicate<RuleInput> getter = switch (field) {
+            case HAS_FINGERPRINTS -> RuleInput::hasFingerprints;
+            case HAS_MEDICAL_EXAM -> RuleInput::hasMedicalExam;
+            default -> throw unsupported(field, operator);
+        };
+        return switch (operator) {
+            case IS_TRUE -> getter::test;
+            case IS_FALSE -> input -> !getter.test(input);
+            default -> throw unsupported(field, operator);
+        };
+    }
+
+    private static RuleCondition compileInteger(RuleField field, ConditionDefinition condition) {
+        RuleOperator operator = condition.getOperator();
+        if (condition.getValue() == null) {
+            throw new IllegalArgumentException("value is required for " + field);
+        }
+        int value = condition.getValue();
+        ToIntFunction<RuleInput> getter = switch (field) {
+            case DURATION_OF_STAY -> RuleInput::durationOfStay;
+            default -> throw unsupported(field, operator);
+        };
+        return switch (operator) {
+            case EQ -> input -> getter.applyAsInt(input) == value;
+            case GT -> input -> getter.applyAsInt(input) > value;
+            case GTE -> input -> getter.applyAsInt(input) >= value;
+            case LT -> input -> getter.applyAsInt(input) < value;
+            case LTE -> input -> getter.applyAsInt(input) <= value;
+            default -> throw unsupported(field, operator);
+        };
+    }
+
+    private static RuleCondition compileString(RuleField field, ConditionDefinition condition) {
+        RuleOperator operator = condition.getOperator();
+        if (condition.getValues() == null || condition.getValues().isEmpty()) {
+            throw new IllegalArgumentException("values are required for " + field);
+        }
+        Function<RuleInput, String> getter = switch (field) {
+            case PURPOSE_OF_STAY -> RuleInput::purposeOfStay;
+            case CITIZENSHIP -> RuleInput::citizenship;
+            default -> throw unsupported(field, operator);
+        };
+        return switch (operator) {
+            case EQ -> {
+                if (condition.getValues().size() != 1) {
+                    throw new IllegalArgumentException("EQ expects exactly one value for " + field);
+                }
+                String value = RuleInput.normalize(condition.getValues().get(0));
+                yield input -> value.equals(getter.apply(input));
+            }
+            case IN -> {
+                Set<String> values = Set.copyOf(condition.getValues().stream()
+                        .map(RuleInput::normalize)
+                        .toList());
+                yield input -> values.contains(getter.apply(input));
+            }
+            default -> throw unsupported(field, operator);
+        };
+    }
+
+    private static IllegalArgumentException unsupported(RuleField field, RuleOperator operator) {
+        return new IllegalArgumentException("Operator " + operator + " is not supported for " + field);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,24 @@
+package com.utmn.fms.roadmap.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RuleSetDefinition {
+
+    private Integer version;
+
+    // язык текстов рекомендаций; по умолчанию русский
+    private String locale;
+
+    @Builder.Default
+    private List<RuleDefinition> rules = new ArrayList<>();
+}
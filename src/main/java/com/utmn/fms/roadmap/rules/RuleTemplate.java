@@ -0,0 +1,13 @@
+package com.utmn.fms.roadmap.rules;
+
+/**
+ * Текст рекомендации правила. {@code key} — хэш содержимого, по которому текст
+ * сохраняется в справочнике шаблонов один раз для всех путеводителей.
+ */
+public record RuleTemplate(
+        String key,
+        String ruleId,
+        String locale,
+        String title,
+        String description) {
+}
@@ -0,0 +1,174 @@
+package com.utmn.fms.roadmap.rules;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Производственный календарь с вычислением сроков за константное время.
+ * <p>
+ * При компиляции по годам строится битовая карта рабочих дней, а по ней — префиксные суммы
+ * (число рабочих дней до каждой даты) и обратный индекс (дата рабочего дня по его номеру).
+ * Сдвиг на N рабочих дней — два обращения к массивам, без перебора дней.
+ * Годы без утвержденного календаря считаются по пятидневке с праздниками по умолчанию;
+ * за пределами {@link #FIRST_YEAR}–{@link #LAST_YEAR} сроки считаются в календарных днях.
+ */
+public final class WorkingCalendar {
+
+    static final int FIRST_YEAR = 2000;
+    static final int LAST_YEAR = 2100;
+
+    private final long firstDay;
+    private final int[] workingBefore;
+    private final int[] workingDays;
+    private final String checksum;
+
+    private WorkingCalendar(long firstDay, int[] workingBefore, int[] workingDays, String checksum) {
+        this.firstDay = firstDay;
+        this.workingBefore = workingBefore;
+        this.workingDays = workingDays;
+        this.checksum = checksum;
+    }
+
+    public static WorkingCalendar compile(WorkingCalendarDefinition definition) {
+        if (definition == null) {
+            throw new IllegalArgumentException("Working calendar is empty");
+        }
+        List<String> defaultHolidays = definition.getDefaultHolidays() != null
+                ? definition.getDefaultHolidays() : List.of();
+        Map<Integer, CalendarYearDefinition> years = new HashMap<>();
+        if (definition.getYears() != null) {
+            for (CalendarYearDefinition year : definition.getYears()) {
+                if (year == null || year.getYear() == null
+                        || year.getYear() < FIRST_YEAR || year.getYear() > LAST_YEAR) {
+                    throw new IllegalArgumentException("Calendar year must be within " + FIRST_YEAR + "-" + LAST_YEAR);
+                }
+                if (years.put(year.getYear(), year) != null) {
+                    throw new IllegalArgumentException("Duplicate calendar year: " + year.getYear());
+                }
+            }
+        }
+
+        long firstDay = LocalDate.of(FIRST_YEAR, 1, 1).toEpochDay();
+        int length = (int) (LocalDate.of(LAST_YEAR + 1, 1, 1).toEpochDay() - firstDay);
+        BitSet working = new BitSet(length);
+        for (int year = FIRST_YEAR; year <= LAST_YEAR; year++) {
+            markYear(working, (int) (LocalDate.of(year, 1, 1).toEpochDay() - firstDay),
+                    year, years.get(year), defaultHolidays);
+        }
+
+        int[] workingBefore = new int[length + 1];
+        int[] workingDays = new int[working.cardinality()];
+        for (int day = 0, rank = 0; day < length; day++) {
+            if (working.get(day)) {
+                workingDays[rank++] = day;
+            }
+            workingBefore[day + 1] = rank;
+        }
+        return new WorkingCalendar(firstDay, workingBefore, workingDays, RuleSet.sha256(definition.toString()));
+    }
+
+    /**
+     * Отмечает рабочие дни одного года; {@code offset} — номер 1 января в общей карте.
+     */
+    private static void markYear(BitSet working, int offset, int year,
+                                 CalendarYearDefinition approved, List<String> defaultHolidays) {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        for (int day = 0; day < first.lengthOfYear(); day++) {
+            DayOfWeek dayOfWeek = first.plusDays(day).getDayOfWeek();
+            working.set(offset + day, dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY);
+        }
+        if (approved == null) {
+            for (String holiday : defaultHolidays) {
+                // 29 февраля в невисокосный год пропускается
+                parse(year, holiday, true).ifPresent(date -> working.clear(offset + date.getDayOfYear() - 1));
+            }
+            return;
+        }
+
+        Set<String> holidays = new HashSet<>(approved.getHolidays() != null ? approved.getHolidays() : List.of());
+        for (String holiday : holidays) {
+            parse(year, holiday, false).ifPresent(date -> working.clear(offset + date.getDayOfYear() - 1));
+        }
+        for (String workingDay : approved.getWorkingDays() != null ? approved.getWorkingDays() : List.<String>of()) {
+            if (holidays.contains(workingDay)) {
+                throw new IllegalArgumentException("Day " + year + "-" + workingDay + " is both holiday and working day");
+            }
+            parse(year, workingDay, false).ifPresent(date -> working.set(offset + date.getDayOfYear() - 1));
+        }
+    }
+
+    private static Optional<LocalDate> parse(int year, String monthDay, boolean skipInvalid) {
+        try {
+            return Optional.of(LocalDate.parse(year + "-" + monthDay));
+        } catch (DateTimeParseException e) {
+            if (skipInvalid && monthDay != null && monthDay.matches("\\d{2}-\\d{2}")) {
+                return Optional.empty();
+            }
+            throw new IllegalArgumentException("Invalid calendar day: " + year + "-" + monthDay, e);
+        }
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        int index = index(date);
+        if (index < 0) {
+            return true;
+        }
+        return workingBefore[index + 1] > workingBefore[index];
+    }
+
+    /**
+     * Ближайший рабочий день, начиная с указанной даты.
+     */
+    public LocalDate nextWorkingDay(LocalDate date) {
+        int index = index(date);
+        return index < 0 ? date : byRank(workingBefore[index], date, 0);
+    }
+
+    /**
+     * Ближайший рабочий день, не позднее указанной даты.
+     */
+    public LocalDate previousWorkingDay(LocalDate date) {
+        int index = index(date);
+        return index < 0 || isWorkingDay(date) ? date : byRank(workingBefore[index] - 1, date, 0);
+    }
+
+    /**
+     * Дата через {@code days} рабочих дней после указанной (до нее — при отрицательном значении).
+     * Сама дата не считается; при нуле — ближайший рабочий день.
+     */
+    public LocalDate plusWorkingDays(LocalDate date, int days) {
+        if (days == 0) {
+            return nextWorkingDay(date);
+        }
+        int index = index(date);
+        if (index < 0) {
+            return date.plusDays(days);
+        }
+        int rank = days > 0 ? workingBefore[index + 1] + days - 1 : workingBefore[index] + days;
+        return byRank(rank, date, days);
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    private LocalDate byRank(int rank, LocalDate date, int days) {
+        if (rank < 0 || rank >= workingDays.length) {
+            return date.plusDays(days);
+        }
+        return LocalDate.ofEpochDay(firstDay + workingDays[rank]);
+    }
+
+    private int index(LocalDate date) {
+        long index = date.toEpochDay() - firstDay;
+        return index < 0 || index >= workingBefore.length - 1 ? -1 : (int) index;
+    }
+}
@@ -0,0 +1,23 @@
+package com.utmn.fms.roadmap.rules;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WorkingCalendarDefinition {
+
+    // праздники для лет без утвержденного календаря, в формате MM-dd, без переносов
+    @Builder.Default
+    private List<String> defaultHolidays = new ArrayList<>();
+
+    @Builder.Default
+    private List<CalendarYearDefinition> years = new ArrayList<>();
+}
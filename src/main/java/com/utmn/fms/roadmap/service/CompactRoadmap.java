@@ -0,0 +1,55 @@
+package com.utmn.fms.roadmap.service;
+
+import java.util.UUID;
+
+/**
+ * Путеводитель в упакованном виде: по одному примитивному массиву на поле рекомендации.
+ * Даты хранятся номером дня от эпохи, шаблон — индексом в таблице шаблонов хранилища,
+ * параметры — ссылками на общие строки. Массивы, значения которых следуют из позиции
+ * (id рекомендаций подряд, порядок 1..n, нет параметров), не создаются.
+ */
+final class CompactRoadmap {
+
+    final long id;
+    final UUID applicantId;
+    final int createdDay;
+    final short[] templates;
+    final int[] executionDays;
+    // id рекомендаций: firstRecommendationId + смещение; смещения null, если id идут подряд
+    final long firstRecommendationId;
+    final int[] recommendationIdOffsets;
+    // null, если порядок совпадает с позицией (1..n)
+    final int[] displayOrders;
+    // null, если параметров нет ни у одной рекомендации
+    final String[] parameters;
+
+    CompactRoadmap(long id, UUID applicantId, int createdDay, short[] templates, int[] executionDays,
+                   long firstRecommendationId, int[] recommendationIdOffsets, int[] displayOrders,
+                   String[] parameters) {
+        this.id = id;
+        this.applicantId = applicantId;
+        this.createdDay = createdDay;
+        this.templates = templates;
+        this.executionDays = executionDays;
+        this.firstRecommendationId = firstRecommendationId;
+        this.recommendationIdOffsets = recommendationIdOffsets;
+        this.displayOrders = displayOrders;
+        this.parameters = parameters;
+    }
+
+    int size() {
+        return templates.length;
+    }
+
+    long recommendationId(int index) {
+        return firstRecommendationId + (recommendationIdOffsets != null ? recommendationIdOffsets[index] : index);
+    }
+
+    int displayOrder(int index) {
+        return displayOrders != null ? displayOrders[index] : index + 1;
+    }
+
+    String parameters(int index) {
+        return parameters != null ? parameters[index] : null;
+    }
+}
@@ -0,0 +1,326 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RecommendationDTO;
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.repository.ActiveRoadmapRow;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Действующие путеводители заявителей в памяти — по одному на заявителя, новый вытесняет прежний.
+ * Путеводитель хранится упакованным ({@link CompactRoadmap}): около 10–20 байт на рекомендацию
+ * плюс около 250 байт на путеводитель вместе с записями индексов — 50–70 байт на рекомендацию
+ * при 4–6 рекомендациях. Тексты не хранятся: заголовок
+ * и описание берутся из справочника шаблонов, а {@link RoadmapDTO} собирается только при чтении.
+ * <p>
+ * Путеводители загружаются при старте и добавляются после коммита транзакции, в которой созданы.
+ * Когда хранилище заполнено, путеводители новых заявителей читаются из БД.
+ */
+@Component
+@Slf4j
+public class CompactRoadmapStore implements MeterBinder {
+
+    // индекс шаблона хранится в short и читается как беззнаковый
+    private static final int MAX_TEMPLATES = 1 << Short.SIZE;
+    private static final int MAX_POOLED_PARAMETERS = 65_536;
+
+    private final RoadmapRepository roadmapRepository;
+    private final RecommendationTemplateService templateService;
+    private final int maxRoadmaps;
+    private final boolean preload;
+
+    private final Map<Long, CompactRoadmap> roadmaps = new ConcurrentHashMap<>();
+    private final Map<UUID, CompactRoadmap> activeByApplicant = new ConcurrentHashMap<>();
+    private final AtomicLong recommendations = new AtomicLong();
+
+    // таблица шаблонов: индекс → id шаблона; массив публикуется заново после каждой записи
+    private final Map<Long, Short> templateIndexes = new ConcurrentHashMap<>();
+    private volatile long[] templateIds = new long[16];
+    private int templateCount;
+
+    // одинаковые параметры (обычно даты) разных путеводителей хранятся одной строкой
+    private final Map<String, String> parameterPool = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CompactRoadmapStore(RoadmapRepository roadmapRepository,
+                               RecommendationTemplateService templateService,
+                               @Value("${roadmap.store.max-roadmaps:1000000}") int maxRoadmaps,
+                               @Value("${roadmap.store.preload:true}") boolean preload) {
+        this.roadmapRepository = roadmapRepository;
+        this.templateService = templateService;
+        this.maxRoadmaps = maxRoadmaps;
+        this.preload = preload;
+    }
+
+    /**
+     * Путеводитель заявителя по id; пусто, если его нет в памяти или он принадлежит другому заявителю.
+     */
+    public Optional<RoadmapDTO> find(long roadmapId, UUID applicantId) {
+        return materialized(roadmaps.get(roadmapId), applicantId);
+    }
+
+    /**
+     * Действующий путеводитель заявителя; пусто, если его нет в памяти.
+     */
+    public Optional<RoadmapDTO> findActive(UUID applicantId) {
+        return materialized(activeByApplicant.get(applicantId), applicantId);
+    }
+
+    public Optional<Long> findActiveId(UUID applicantId) {
+        CompactRoadmap roadmap = activeByApplicant.get(applicantId);
+        return roadmap != null ? Optional.of(roadmap.id) : Optional.empty();
+    }
+
+    public boolean contains(long roadmapId, UUID applicantId) {
+        CompactRoadmap roadmap = roadmaps.get(roadmapId);
+        return roadmap != null && roadmap.applicantId.equals(applicantId);
+    }
+
+    /**
+     * Добавляет сохраненный путеводитель; в транзакции — после ее коммита.
+     */
+    public void put(Roadmap roadmap) {
+        CompactRoadmap compact = encode(roadmap);
+        // путеводитель, который не удалось упаковать, читается из БД; прежний заявителя уже не действующий
+        Runnable apply = compact != null ? () -> store(compact) : () -> evict(roadmap.getApplicantId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void preload() {
+        if (!preload) {
+            return;
+        }
+        long started = System.nanoTime();
+        try (Stream<ActiveRoadmapRow> rows = roadmapRepository.streamActiveRoadmapRows()) {
+            // строки упорядочены по путеводителю: смена id означает, что предыдущий прочитан целиком
+            Iterator<ActiveRoadmapRow> iterator = rows.iterator();
+            List<ActiveRoadmapRow> current = new ArrayList<>();
+            while (iterator.hasNext()) {
+                ActiveRoadmapRow row = iterator.next();
+                if (!current.isEmpty() && !current.get(0).roadmapId().equals(row.roadmapId())) {
+                    storeRows(current);
+                    current.clear();
+                }
+                current.add(row);
+            }
+            if (!current.isEmpty()) {
+                storeRows(current);
+            }
+        }
+        log.info("Loaded {} active roadmaps ({} recommendations) into memory in {} ms",
+                roadmaps.size(), recommendations.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("roadmap.store.roadmaps", roadmaps, Map::size)
+                .register(registry);
+        Gauge.builder("roadmap.store.recommendations", recommendations, AtomicLong::get)
+                .register(registry);
+        FunctionCounter.builder("roadmap.store.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("roadmap.store.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    private Optional<RoadmapDTO> materialized(CompactRoadmap roadmap, UUID applicantId) {
+        if (roadmap == null || !roadmap.applicantId.equals(applicantId)) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(materialize(roadmap));
+    }
+
+    private void evict(UUID applicantId) {
+        CompactRoadmap previous = activeByApplicant.remove(applicantId);
+        if (previous != null) {
+            roadmaps.remove(previous.id);
+            recommendations.addAndGet(-previous.size());
+        }
+    }
+
+    private void store(CompactRoadmap roadmap) {
+        activeByApplicant.compute(roadmap.applicantId, (applicant, previous) -> {
+            if (previous != null) {
+                if (previous.id > roadmap.id) {
+                    return previous;
+                }
+                roadmaps.remove(previous.id);
+                recommendations.addAndGet(-previous.size());
+            } else if (roadmaps.size() >= maxRoadmaps) {
+                return null;
+            }
+            roadmaps.put(roadmap.id, roadmap);
+            recommendations.addAndGet(roadmap.size());
+            return roadmap;
+        });
+    }
+
+    private void storeRows(List<ActiveRoadmapRow> rows) {
+        ActiveRoadmapRow first = rows.get(0);
+        List<ActiveRoadmapRow> recommendationRows = first.recommendationId() != null ? rows : List.of();
+        CompactRoadmap compact = encode(first.roadmapId(), first.applicantId(), first.createdDate(),
+                recommendationRows.size(),
+                i -> recommendationRows.get(i).recommendationId(),
+                i -> recommendationRows.get(i).templateId(),
+                i -> recommendationRows.get(i).executionDate(),
+                i -> recommendationRows.get(i).displayOrder(),
+                i -> recommendationRows.get(i).parameters());
+        if (compact != null) {
+            store(compact);
+        }
+    }
+
+    private CompactRoadmap encode(Roadmap roadmap) {
+        List<Recommendation> list = roadmap.getRecommendations();
+        return encode(roadmap.getId(), roadmap.getApplicantId(), roadmap.getCreatedDate(), list.size(),
+                i -> list.get(i).getId(),
+                i -> list.get(i).getTemplateId(),
+                i -> list.get(i).getExecutionDate(),
+                i -> list.get(i).getDisplayOrder(),
+                i -> list.get(i).getParameters());
+    }
+
+    private CompactRoadmap encode(long id, UUID applicantId, LocalDate createdDate, int size,
+                                  Field<Long> recommendationId, Field<Long> templateId, Field<LocalDate> executionDate,
+                                  Field<Integer> displayOrder, Field<String> parameters) {
+        short[] templates = new short[size];
+        int[] executionDays = new int[size];
+        int[] idOffsets = new int[size];
+        int[] orders = new int[size];
+        String[] params = new String[size];
+        long firstId = size > 0 ? recommendationId.get(0) : 0;
+        boolean consecutiveIds = true;
+        boolean positionalOrder = true;
+        boolean hasParameters = false;
+
+        for (int i = 0; i < size; i++) {
+            int template = templateIndex(templateId.get(i));
+            long offset = recommendationId.get(i) - firstId;
+            if (template < 0 || offset != (int) offset) {
+                return null;
+            }
+            templates[i] = (short) template;
+            executionDays[i] = Math.toIntExact(executionDate.get(i).toEpochDay());
+            idOffsets[i] = (int) offset;
+            orders[i] = displayOrder.get(i);
+            params[i] = pooled(parameters.get(i));
+            consecutiveIds &= offset == i;
+            positionalOrder &= orders[i] == i + 1;
+            hasParameters |= params[i] != null;
+        }
+
+        return new CompactRoadmap(id, applicantId, Math.toIntExact(createdDate.toEpochDay()), templates,
+                executionDays, firstId, consecutiveIds ? null : idOffsets, positionalOrder ? null : orders,
+                hasParameters ? params : null);
+    }
+
+    private RoadmapDTO materialize(CompactRoadmap roadmap) {
+        long[] table = templateIds;
+        List<RecommendationDTO> recommendationDTOs = new ArrayList<>(roadmap.size());
+        for (int i = 0; i < roadmap.size(); i++) {
+            long templateId = table[Short.toUnsignedInt(roadmap.templates[i])];
+            recommendationDTOs.add(RecommendationDTO.builder()
+                    .id(roadmap.recommendationId(i))
+                    .title(templateService.title(templateId))
+                    .description(templateService.description(templateId, roadmap.parameters(i)))
+                    .executionDate(LocalDate.ofEpochDay(roadmap.executionDays[i]))
+                    .displayOrder(roadmap.displayOrder(i))
+                    .build());
+        }
+        return RoadmapDTO.builder()
+                .id(roadmap.id)
+                .createdDate(LocalDate.ofEpochDay(roadmap.createdDay))
+                .recommendations(recommendationDTOs)
+                .build();
+    }
+
+    /**
+     * Индекс шаблона в таблице; -1, если таблица заполнена.
+     */
+    private int templateIndex(Long templateId) {
+        Short index = templateIndexes.get(templateId);
+        if (index != null) {
+            return Short.toUnsignedInt(index);
+        }
+        synchronized (this) {
+            index = templateIndexes.get(templateId);
+            if (index != null) {
+                return Short.toUnsignedInt(index);
+            }
+            if (templateCount == MAX_TEMPLATES) {
+                return -1;
+            }
+            long[] table = templateIds;
+            if (templateCount == table.length) {
+                table = Arrays.copyOf(table, Math.min(table.length * 2, MAX_TEMPLATES));
+            }
+            table[templateCount] = templateId;
+            templateIds = table;
+            templateIndexes.put(templateId, (short) templateCount);
+            return templateCount++;
+        }
+    }
+
+    private String pooled(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = parameterPool.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (parameterPool.size() >= MAX_POOLED_PARAMETERS) {
+            return value;
+        }
+        shared = parameterPool.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    @FunctionalInterface
+    private interface Field<T> {
+        T get(int index);
+    }
+}
@@ -0,0 +1,30 @@
+package com.utmn.fms.roadmap.service;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Locale;
+
+/**
+ * Проверка нарушенного ограничения schema.sql по имени, которое Hibernate извлек из ошибки СУБД,
+ * а не по тексту сообщения.
+ */
+final class Constraints {
+
+    // H2 называет не само ограничение, а его индекс: PUBLIC.UK_SURVEY_DRAFT_VERSION_INDEX_B
+    private static final String H2_INDEX_SUFFIX = "_INDEX_";
+
+    private Constraints() {
+    }
+
+    static boolean isViolated(Throwable e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String name = violation.getConstraintName().toUpperCase(Locale.ROOT);
+                name = name.substring(name.lastIndexOf('.') + 1);
+                String expected = constraint.toUpperCase(Locale.ROOT);
+                return name.equals(expected) || name.startsWith(expected + H2_INDEX_SUFFIX);
+            }
+        }
+        return false;
+    }
+}
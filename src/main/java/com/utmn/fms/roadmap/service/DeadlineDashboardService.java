@@ -0,0 +1,210 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.DeadlineGroupDTO;
+import com.utmn.fms.roadmap.dto.DeadlineSummaryDTO;
+import com.utmn.fms.roadmap.dto.DueRecommendationDTO;
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.repository.DeadlineCount;
+import com.utmn.fms.roadmap.repository.DeadlineCounterRepository;
+import com.utmn.fms.roadmap.repository.DueRecommendationRow;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Сводка ближайших сроков для сотрудников: сколько рекомендаций каждого вида приходится на
+ * период по гражданству заявителей. Сводка читается из счетчиков {@code deadline_counters},
+ * которые обновляются в транзакции сохранения путеводителя, поэтому ее стоимость зависит от
+ * длины периода, а не от числа рекомендаций. Список за счетчиком выдается keyset-страницами.
+ * <p>
+ * Учитываются только действующие путеводители — последний у каждого заявителя: новый
+ * путеводитель вычитает из счетчиков сроки того, который он заменил. Какой путеводитель заявителя
+ * учтен, хранит {@code deadline_applicants}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadlineDashboardService {
+
+    static final int MAX_DAYS = 366;
+
+    private static final Comparator<CounterKey> KEY_ORDER = Comparator.comparing(CounterKey::executionDate)
+            .thenComparing(CounterKey::templateId)
+            .thenComparing(CounterKey::citizenship);
+
+    private final DeadlineCounterRepository counterRepository;
+    private final RoadmapRepository roadmapRepository;
+    private final RecommendationTemplateService templateService;
+
+    /**
+     * Учитывает рекомендации сохраненных путеводителей и вычитает рекомендации замененных ими.
+     * Вызывается в транзакции сохранения; строки заявителей в {@code deadline_applicants} остаются
+     * заблокированными до ее конца, поэтому параллельные сохранения одного заявителя учитываются по очереди.
+     */
+    public void record(Collection<Roadmap> roadmaps) {
+        if (roadmaps.isEmpty()) {
+            return;
+        }
+        // из нескольких новых путеводителей одного заявителя действующим остается последний
+        Map<UUID, Roadmap> current = new HashMap<>();
+        for (Roadmap roadmap : roadmaps) {
+            current.merge(roadmap.getApplicantId(), roadmap,
+                    (previous, next) -> next.getId() > previous.getId() ? next : previous);
+        }
+
+        // путеводитель, уже замененный более новым из параллельной транзакции, не учитывается
+        Map<UUID, Long> counted = counterRepository.lockCountedRoadmaps(current.keySet());
+        Map<UUID, Long> replacing = new HashMap<>();
+        List<Long> replaced = new ArrayList<>();
+        Map<CounterKey, Long> deltas = new TreeMap<>(KEY_ORDER);
+        for (Roadmap roadmap : current.values()) {
+            long countedId = counted.getOrDefault(roadmap.getApplicantId(), 0L);
+            if (roadmap.getId() <= countedId) {
+                continue;
+            }
+            replacing.put(roadmap.getApplicantId(), roadmap.getId());
+            if (countedId != 0) {
+                replaced.add(countedId);
+            }
+            String citizenship = roadmap.getSurvey().getCitizenship();
+            for (Recommendation recommendation : roadmap.getRecommendations()) {
+                deltas.merge(new CounterKey(recommendation.getExecutionDate(), recommendation.getTemplateId(), citizenship),
+                        1L, Long::sum);
+            }
+        }
+        if (replacing.isEmpty()) {
+            return;
+        }
+        if (!replaced.isEmpty()) {
+            for (DeadlineCount count : roadmapRepository.countDeadlines(replaced)) {
+                deltas.merge(new CounterKey(count.executionDate(), count.templateId(), count.citizenship()),
+                        -count.count(), Long::sum);
+            }
+        }
+
+        List<DeadlineCount> changes = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .map(delta -> new DeadlineCount(delta.getKey().executionDate(), delta.getKey().templateId(),
+                        delta.getKey().citizenship(), delta.getValue()))
+                .toList();
+        if (!changes.isEmpty()) {
+            counterRepository.increment(changes);
+        }
+        counterRepository.markCounted(replacing);
+    }
+
+    @Timed(value = "roadmap.dashboard.summary", histogram = true)
+    @Transactional(readOnly = true)
+    public DeadlineSummaryDTO summarize(int days) {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(Math.clamp(days, 0, MAX_DAYS));
+
+        List<DeadlineCount> counts = new ArrayList<>(counterRepository.sumByTemplateAndCitizenship(from, to));
+        counts.sort(Comparator.comparing(DeadlineCount::templateId));
+
+        // версии текста одного правила сводятся в одну группу под названием последней версии
+        Map<String, DeadlineGroupDTO> groups = new TreeMap<>();
+        long total = 0;
+        for (DeadlineCount count : counts) {
+            String ruleId = templateService.ruleId(count.templateId());
+            DeadlineGroupDTO group = groups.computeIfAbsent(ruleId + '\u0000' + count.citizenship(),
+                    key -> DeadlineGroupDTO.builder().ruleId(ruleId).citizenship(count.citizenship()).build());
+            group.setTitle(templateService.title(count.templateId()));
+            group.setCount(group.getCount() + count.count());
+            total += count.count();
+        }
+
+        List<DeadlineGroupDTO> sorted = new ArrayList<>(groups.values());
+        sorted.sort(Comparator.comparingLong(DeadlineGroupDTO::getCount).reversed());
+        return DeadlineSummaryDTO.builder()
+                .from(from)
+                .to(to)
+                .total(total)
+                .groups(sorted)
+                .build();
+    }
+
+    /**
+     * Рекомендации со сроком в периоде, от ближайших; фильтры по виду и гражданству необязательны.
+     */
+    @Transactional(readOnly = true)
+    public HistoryPageDTO<DueRecommendationDTO> findDue(int days, String ruleId, String citizenship,
+                                                       String cursor, int size) {
+        LocalDate from = LocalDate.now();
+        LocalDate to = from.plusDays(Math.clamp(days, 0, MAX_DAYS));
+        HistoryCursor after = HistoryCursor.decode(cursor);
+        if (after == HistoryCursor.FIRST) {
+            after = new HistoryCursor(from.minusDays(1).atStartOfDay(), 0);
+        } else if (after.position() == null) {
+            throw new IllegalArgumentException("Invalid due cursor: " + cursor);
+        }
+
+        int pageSize = HistoryCursor.pageSize(size);
+        List<DueRecommendationDTO> rows = roadmapRepository.findDue(from, to,
+                        after.position().toLocalDate(), after.id(), blankToNull(ruleId), blankToNull(citizenship),
+                        Limit.of(pageSize + 1))
+                .stream()
+                .map(this::toDTO)
+                .toList();
+        return HistoryCursor.page(rows, pageSize,
+                row -> new HistoryCursor(row.getExecutionDate().atStartOfDay(), row.getRecommendationId()));
+    }
+
+    /**
+     * Пересчитывает счетчики по рекомендациям действующих путеводителей — после изменений
+     * в обход приложения.
+     */
+    @Transactional
+    public int rebuild() {
+        int rows = counterRepository.rebuild();
+        log.info("Rebuilt {} deadline counters", rows);
+        return rows;
+    }
+
+    // счетчики появились позже рекомендаций: на существующей БД они строятся один раз при старте
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initializeCounters() {
+        if (counterRepository.isEmpty() && roadmapRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private DueRecommendationDTO toDTO(DueRecommendationRow row) {
+        return DueRecommendationDTO.builder()
+                .recommendationId(row.recommendationId())
+                .roadmapId(row.roadmapId())
+                .surveyId(row.surveyId())
+                .fullName(row.fullName())
+                .citizenship(row.citizenship())
+                .ruleId(templateService.ruleId(row.templateId()))
+                .title(templateService.title(row.templateId()))
+                .executionDate(row.executionDate())
+                .build();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private record CounterKey(LocalDate executionDate, Long templateId, String citizenship) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.utmn.fms.roadmap.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш готовых HTML-экспортов по id путеводителя. Путеводитель не меняется после сохранения,
+ * поэтому записи не устаревают и вытесняются только по общему объему (LRU).
+ */
+@Component
+@Slf4j
+public class ExportCache implements MeterBinder {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExportCache(@Value("${roadmap.export.cache.max-bytes:16777216}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Optional<byte[]> get(Long roadmapId) {
+        byte[] content;
+        synchronized (this) {
+            content = entries.get(roadmapId);
+        }
+        (content != null ? hits : misses).increment();
+        return Optional.ofNullable(content);
+    }
+
+    public void put(Long roadmapId, byte[] content) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        synchronized (this) {
+            byte[] previous = entries.put(roadmapId, content);
+            totalBytes += content.length - (previous != null ? previous.length : 0);
+
+            Iterator<Map.Entry<Long, byte[]>> eldest = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<Long, byte[]> entry = eldest.next();
+                totalBytes -= entry.getValue().length;
+                eldest.remove();
+                evictions.increment();
+                log.debug("Evicted export of roadmap {} from cache", entry.getKey());
+            }
+        }
+    }
+
+    public synchronized void invalidate(Long roadmapId) {
+        byte[] removed = entries.remove(roadmapId);
+        if (removed != null) {
+            totalBytes -= removed.length;
+        }
+    }
+
+    public Stats stats() {
+        int size;
+        long bytes;
+        synchronized (this) {
+            size = entries.size();
+            bytes = totalBytes;
+        }
+        return new Stats(size, bytes, maxBytes, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("roadmap.export.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("roadmap.export.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("roadmap.export.cache.evictions", evictions, LongAdder::sum)
+                .register(registry);
+        Gauge.builder("roadmap.export.cache.size", this, cache -> cache.stats().entries())
+                .register(registry);
+        Gauge.builder("roadmap.export.cache.bytes", this, cache -> cache.stats().bytes())
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public record Stats(int entries, long bytes, long maxBytes, long hits, long misses, long evictions) {
+    }
+}
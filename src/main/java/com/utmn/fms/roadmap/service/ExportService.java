@@ -2,11 +2,15 @@ package com.utmn.fms.roadmap.service;
 
 import com.utmn.fms.roadmap.dto.RoadmapDTO;
 import com.utmn.fms.roadmap.dto.RecommendationDTO;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 
 @Service
@@ -14,39 +18,94 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 public class ExportService {
 
+    private static final byte[] HEADER = bytes("""
+            <!DOCTYPE html>
+            <html lang="ru">
+            <head>
+                <meta charset="UTF-8">
+                <title>Путеводитель мигранта</title>
+                <style>
+                    body { font-family: Arial, sans-serif; margin: 40px; }
+                    h1 { color: #333; }
+                    .recommendation { margin-bottom: 30px; padding: 20px; border: 1px solid #ddd; border-radius: 5px; }
+                    .recommendation h2 { color: #0066cc; margin-top: 0; }
+                    .date { color: #666; font-weight: bold; }
+                </style>
+            </head>
+            <body>
+                <h1>Путеводитель мигранта</h1>
+                <p>Дата создания:\s""");
+    private static final byte[] HEADER_END = bytes("</p>\n    <hr>\n");
+    private static final byte[] RECOMMENDATION_START = bytes("    <div class=\"recommendation\">\n        <h2>");
+    private static final byte[] RECOMMENDATION_DATE = bytes("</h2>\n        <p class=\"date\">Дата выполнения: ");
+    private static final byte[] RECOMMENDATION_DESCRIPTION = bytes("</p>\n        <p>");
+    private static final byte[] RECOMMENDATION_END = bytes("</p>\n    </div>\n");
+    private static final byte[] FOOTER = bytes("</body>\n</html>");
+
+    // меняется вместе с разметкой экспорта, чтобы старые ETag перестали совпадать
+    private static final int FORMAT_VERSION = 1;
+
+    // средний размер блока рекомендации с русским описанием в UTF-8
+    private static final int ESTIMATED_RECOMMENDATION_SIZE = 640;
+
+    @Timed(value = "roadmap.export.html", histogram = true)
     public byte[] exportToHtml(RoadmapDTO roadmap) {
+        int recommendations = roadmap.getRecommendations() != null ? roadmap.getRecommendations().size() : 0;
+        ByteArrayOutputStream out = new ByteArrayOutputStream(
+                HEADER.length + FOOTER.length + 64 + recommendations * ESTIMATED_RECOMMENDATION_SIZE);
+        try {
+            writeHtml(roadmap, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Пишет HTML-документ напрямую в поток, не собирая его целиком в памяти.
+     */
+    @Timed(value = "roadmap.export.stream", histogram = true)
+    public void writeHtml(RoadmapDTO roadmap, OutputStream out) throws IOException {
         log.info("Exporting roadmap to HTML");
+        render(roadmap, out);
+        out.flush();
+    }
+
+    /**
+     * Пишет HTML-документ в поток без сброса самого потока — для массовой выгрузки,
+     * где документы идут подряд в один ответ.
+     */
+    void render(RoadmapDTO roadmap, OutputStream out) throws IOException {
+        Utf8HtmlWriter html = new Utf8HtmlWriter(out);
+        html.write(HEADER);
+        html.writeText(roadmap.getCreatedDate());
+        html.write(HEADER_END);
 
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>\n");
-        html.append("<html lang=\"ru\">\n");
-        html.append("<head>\n");
-        html.append("    <meta charset=\"UTF-8\">\n");
-        html.append("    <title>Путеводитель мигранта</title>\n");
-        html.append("    <style>\n");
-        html.append("        body { font-family: Arial, sans-serif; margin: 40px; }\n");
-        html.append("        h1 { color: #333; }\n");
-        html.append("        .recommendation { margin-bottom: 30px; padding: 20px; border: 1px solid #ddd; border-radius: 5px; }\n");
-        html.append("        .recommendation h2 { color: #0066cc; margin-top: 0; }\n");
-        html.append("        .date { color: #666; font-weight: bold; }\n");
-        html.append("    </style>\n");
-        html.append("</head>\n");
-        html.append("<body>\n");
-        html.append("    <h1>Путеводитель мигранта</h1>\n");
-        html.append("    <p>Дата создания: ").append(roadmap.getCreatedDate()).append("</p>\n");
-        html.append("    <hr>\n");
-
-        for (RecommendationDTO rec : roadmap.getRecommendations()) {
-            html.append("    <div class=\"recommendation\">\n");
-            html.append("        <h2>").append(rec.getTitle()).append("</h2>\n");
-            html.append("        <p class=\"date\">Дата выполнения: ").append(rec.getExecutionDate()).append("</p>\n");
-            html.append("        <p>").append(rec.getDescription()).append("</p>\n");
-            html.append("    </div>\n");
+        if (roadmap.getRecommendations() != null) {
+            for (RecommendationDTO rec : roadmap.getRecommendations()) {
+                html.write(RECOMMENDATION_START);
+                html.writeText(rec.getTitle());
+                html.write(RECOMMENDATION_DATE);
+                html.writeText(rec.getExecutionDate());
+                html.write(RECOMMENDATION_DESCRIPTION);
+                html.writeText(rec.getDescription());
+                html.write(RECOMMENDATION_END);
+            }
         }
 
-        html.append("</body>\n");
-        html.append("</html>");
+        html.write(FOOTER);
+        html.flushBuffer();
+    }
+
+    /**
+     * Сильный ETag экспорта: путеводитель не меняется после сохранения, поэтому содержимое
+     * однозначно определяется его id и версией разметки.
+     */
+    public static String etag(Long roadmapId) {
+        return "\"roadmap-" + roadmapId + "-v" + FORMAT_VERSION + "\"";
+    }
 
-        return html.toString().getBytes(StandardCharsets.UTF_8);
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+}
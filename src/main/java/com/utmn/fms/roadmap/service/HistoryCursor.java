@@ -0,0 +1,58 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Позиция в истории для keyset-пагинации: ключ сортировки (если он не id) и id последней
+ * выданной записи. Клиенту передается непрозрачной строкой.
+ */
+record HistoryCursor(LocalDateTime position, long id) {
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
+    // начало истории: ключи всех записей меньше
+    static final HistoryCursor FIRST = new HistoryCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Long.MAX_VALUE);
+
+    static HistoryCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            return new HistoryCursor(
+                    separator > 0 ? LocalDateTime.parse(value.substring(0, separator)) : null,
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid history cursor: " + cursor, e);
+        }
+    }
+
+    static int pageSize(int requested) {
+        return Math.clamp(requested, 1, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Страница из {@code rows}, запрошенных с запасом в одну запись: по ней понятно, есть ли продолжение.
+     */
+    static <T> HistoryPageDTO<T> page(List<T> rows, int pageSize, Function<T, HistoryCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new HistoryPageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new HistoryPageDTO<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    String encode() {
+        String value = position != null ? position + "|" + id : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.entity.RecommendationTemplate;
+import com.utmn.fms.roadmap.event.RuleSetReloadedEvent;
+import com.utmn.fms.roadmap.repository.RecommendationTemplateRepository;
+import com.utmn.fms.roadmap.rules.DescriptionTemplate;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import com.utmn.fms.roadmap.rules.RuleSet;
+import com.utmn.fms.roadmap.rules.RuleTemplate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Справочник текстов рекомендаций. Рекомендации хранят только id шаблона и значения
+ * плейсхолдеров, а текст собирается при чтении из кэша в памяти. Записи справочника
+ * не изменяются: новый текст правила получает новую запись.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationTemplateService {
+
+    private final RecommendationTemplateRepository templateRepository;
+    private final RecommendationRuleEngine ruleEngine;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, Long> idsByKey = new ConcurrentHashMap<>();
+    private final Map<Long, CachedTemplate> templatesById = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerCurrentRules() {
+        register(ruleEngine.getRuleSet());
+    }
+
+    @EventListener
+    public void onRuleSetReloaded(RuleSetReloadedEvent event) {
+        register(event.ruleSet());
+    }
+
+    /**
+     * Сохраняет в справочник тексты правил, которых в нем еще нет.
+     */
+    public synchronized void register(RuleSet ruleSet) {
+        List<RuleTemplate> missing = ruleSet.templates().stream()
+                .filter(template -> !idsByKey.containsKey(template.key()))
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        // отдельная транзакция: шаблон должен остаться в БД, даже если путеводитель не сохранится
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<RecommendationTemplate> saved = transaction.execute(status -> missing.stream()
+                .map(template -> templateRepository.findByContentHash(template.key())
+                        .orElseGet(() -> templateRepository.save(RecommendationTemplate.builder()
+                                .ruleId(template.ruleId())
+                                .locale(template.locale())
+                                .title(template.title())
+                                .description(template.description())
+                                .contentHash(template.key())
+                                .build())))
+                .toList());
+
+        saved.forEach(this::cache);
+        log.info("Registered {} recommendation templates for rule set version {}", saved.size(), ruleSet.getVersion());
+    }
+
+    public Long templateId(RuleSet ruleSet, String templateKey) {
+        Long id = idsByKey.get(templateKey);
+        if (id == null) {
+            register(ruleSet);
+            id = idsByKey.get(templateKey);
+        }
+        return id;
+    }
+
+    public String ruleId(Long templateId) {
+        return template(templateId).ruleId();
+    }
+
+    public String title(Long templateId) {
+        return template(templateId).title();
+    }
+
+    public String description(Long templateId, String parameters) {
+        return template(templateId).description().render(parameters);
+    }
+
+    void cache(RecommendationTemplate template) {
+        templatesById.put(template.getId(),
+                new CachedTemplate(template.getRuleId(), template.getTitle(),
+                        DescriptionTemplate.compile(template.getDescription())));
+        idsByKey.put(template.getContentHash(), template.getId());
+    }
+
+    private CachedTemplate template(Long templateId) {
+        CachedTemplate template = templatesById.get(templateId);
+        if (template == null) {
+            // шаблон прежней версии правил, сохраненный до перезапуска
+            RecommendationTemplate stored = templateRepository.findById(templateId)
+                    .orElseThrow(() -> new IllegalStateException("Recommendation template not found: " + templateId));
+            cache(stored);
+            template = templatesById.get(templateId);
+        }
+        return template;
+    }
+
+    private record CachedTemplate(String ruleId, String title, DescriptionTemplate description) {
+    }
+}
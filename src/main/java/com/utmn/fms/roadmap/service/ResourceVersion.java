@@ -0,0 +1,26 @@
+package com.utmn.fms.roadmap.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Валидаторы ответа для условного GET: сильный ETag и время изменения в миллисекундах
+ * ({@code -1}, если неизвестно).
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    public static ResourceVersion of(String tag) {
+        return new ResourceVersion("\"" + tag + "\"", -1);
+    }
+
+    /**
+     * Last-Modified передается с точностью до секунды, поэтому в ETag входит время до микросекунд.
+     */
+    public static ResourceVersion of(String tag, LocalDateTime modifiedAt) {
+        Instant modified = modifiedAt.atZone(ZoneId.systemDefault()).toInstant();
+        return new ResourceVersion("\"" + tag + "-" + ChronoUnit.MICROS.between(Instant.EPOCH, modified) + "\"",
+                modified.toEpochMilli());
+    }
+}
@@ -0,0 +1,112 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.repository.RoadmapRecommendationRow;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Выгрузка всех путеводителей в архив. Строки путеводителей с рекомендациями читаются одним
+ * запросом-проекцией через курсор БД, собираются в {@link RoadmapDTO} по одному путеводителю
+ * и сразу пишутся в ответ. Сущности не загружаются, поэтому память не растет с числом строк.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoadmapArchiveService {
+
+    private final RoadmapRepository roadmapRepository;
+    private final RoadmapService roadmapService;
+    private final ExportService exportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Путеводители в формате NDJSON: один {@link RoadmapDTO} на строку.
+     */
+    @Timed(value = "roadmap.archive.ndjson", histogram = true)
+    @Transactional(readOnly = true)
+    public long writeNdjson(OutputStream out) throws IOException {
+        // поток сбрасывается буфером ответа, а не после каждого путеводителя
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // строки разделяются переводом строки, а не пробелом по умолчанию
+            json.setRootValueSeparator(null);
+            long count = forEachRoadmap(roadmap -> {
+                writer.writeValue(json, roadmap);
+                json.writeRaw('\n');
+            });
+            log.info("Exported {} roadmaps as NDJSON", count);
+            return count;
+        }
+    }
+
+    /**
+     * ZIP-архив с HTML-путеводителем {@code roadmap-<id>.html} для каждого путеводителя.
+     */
+    @Timed(value = "roadmap.archive.zip", histogram = true)
+    @Transactional(readOnly = true)
+    public long writeZip(OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        long count = forEachRoadmap(roadmap -> {
+            zip.putNextEntry(new ZipEntry("roadmap-" + roadmap.getId() + ".html"));
+            exportService.render(roadmap, zip);
+            zip.closeEntry();
+        });
+        zip.finish();
+        log.info("Exported {} roadmaps as ZIP", count);
+        return count;
+    }
+
+    private long forEachRoadmap(RoadmapWriter writer) throws IOException {
+        long count = 0;
+        try (Stream<RoadmapRecommendationRow> rows = roadmapRepository.streamAllRoadmapRows()) {
+            // строки упорядочены по путеводителю: смена id означает, что предыдущий собран целиком
+            Iterator<RoadmapRecommendationRow> iterator = rows.iterator();
+            RoadmapDTO current = null;
+            while (iterator.hasNext()) {
+                RoadmapRecommendationRow row = iterator.next();
+                if (current == null || !current.getId().equals(row.roadmapId())) {
+                    if (current != null) {
+                        writer.write(current);
+                        count++;
+                    }
+                    current = RoadmapDTO.builder()
+                            .id(row.roadmapId())
+                            .createdDate(row.createdDate())
+                            .recommendations(new ArrayList<>())
+                            .build();
+                }
+                if (row.recommendationId() != null) {
+                    current.getRecommendations().add(roadmapService.convertToDTO(row));
+                }
+            }
+            if (current != null) {
+                writer.write(current);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface RoadmapWriter {
+        void write(RoadmapDTO roadmap) throws IOException;
+    }
+}
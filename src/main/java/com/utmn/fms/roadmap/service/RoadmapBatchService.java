@@ -0,0 +1,129 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapBatchChunkDTO;
+import com.utmn.fms.roadmap.dto.RoadmapBatchReportDTO;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.event.RoadmapCreatedEvent;
+import com.utmn.fms.roadmap.repository.RoadmapInputHash;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетное формирование путеводителей. Каждая порция анкет обрабатывается в отдельной
+ * транзакции: анкеты загружаются одним запросом, путеводители и рекомендации вставляются
+ * JDBC-пакетами (идентификаторы берутся из последовательностей с шагом allocationSize).
+ * Анкеты, по которым с теми же данными и правилами построен действующий путеводитель заявителя, пропускаются.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoadmapBatchService {
+
+    private final RoadmapService roadmapService;
+    private final SurveyRepository surveyRepository;
+    private final RoadmapRepository roadmapRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeadlineDashboardService dashboardService;
+    private final CompactRoadmapStore roadmapStore;
+
+    @Value("${roadmap.batch.chunk-size:500}")
+    private int chunkSize;
+
+    @Timed(value = "roadmap.batch.generate", histogram = true)
+    public RoadmapBatchReportDTO generate(List<Long> surveyIds) {
+        long started = System.nanoTime();
+        List<Long> ids = surveyIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        log.info("Building roadmaps for {} surveys in chunks of {}", ids.size(), chunkSize);
+
+        List<RoadmapBatchChunkDTO> chunks = new ArrayList<>();
+        int generated = 0;
+        int reused = 0;
+        for (int from = 0, index = 1; from < ids.size(); from += chunkSize, index++) {
+            RoadmapBatchChunkDTO chunk = processChunk(index, ids.subList(from, Math.min(from + chunkSize, ids.size())));
+            generated += chunk.getGenerated();
+            reused += chunk.getReused();
+            chunks.add(chunk);
+        }
+
+        return RoadmapBatchReportDTO.builder()
+                .requested(ids.size())
+                .generated(generated)
+                .reused(reused)
+                .failed(ids.size() - generated - reused)
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .chunks(chunks)
+                .build();
+    }
+
+    private RoadmapBatchChunkDTO processChunk(int index, List<Long> surveyIds) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Survey> surveys = surveyRepository.findAllById(surveyIds);
+                Map<Long, RoadmapInputHash> current = roadmapRepository.findCurrentInputHashes(surveyIds).stream()
+                        .collect(Collectors.toMap(RoadmapInputHash::getSurveyId, Function.identity()));
+
+                List<Roadmap> roadmaps = new ArrayList<>(surveys.size());
+                Set<Long> found = new HashSet<>();
+                int reused = 0;
+                for (Survey survey : surveys) {
+                    found.add(survey.getId());
+                    Roadmap roadmap = roadmapService.createRoadmap(survey);
+                    RoadmapInputHash previous = current.get(survey.getId());
+                    if (previous == null) {
+                        roadmaps.add(roadmap);
+                    } else if (survey.getId().equals(previous.getRoadmapSurveyId())
+                            && roadmap.getInputHash().equals(previous.getInputHash())) {
+                        reused++;
+                    } else {
+                        roadmap.setPreviousId(previous.getRoadmapId());
+                        roadmaps.add(roadmap);
+                    }
+                }
+                roadmapRepository.saveAll(roadmaps);
+                dashboardService.record(roadmaps);
+                roadmaps.forEach(roadmapStore::put);
+                roadmaps.forEach(roadmap -> eventPublisher.publishEvent(
+                        new RoadmapCreatedEvent(roadmap.getId(), roadmap.getSurvey().getId())));
+
+                return RoadmapBatchChunkDTO.builder()
+                        .index(index)
+                        .requested(surveyIds.size())
+                        .generated(roadmaps.size())
+                        .reused(reused)
+                        .missingSurveyIds(surveyIds.stream().filter(id -> !found.contains(id)).toList())
+                        .build();
+            });
+        } catch (RuntimeException e) {
+            log.error("Error building roadmap chunk {}", index, e);
+            return RoadmapBatchChunkDTO.builder()
+                    .index(index)
+                    .requested(surveyIds.size())
+                    .generated(0)
+                    .reused(0)
+                    .missingSurveyIds(List.of())
+                    .error(e.getMessage())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Асинхронное формирование путеводителей. Каждое задание выполняется в отдельном
+ * виртуальном потоке; число одновременных обращений к БД ограничено семафором,
+ * чтобы всплеск заявок не исчерпал пул соединений. Незавершенных заданий не больше
+ * {@code roadmap.jobs.max-queued}: сверх этого новые задания отклоняются. Завершенные задания
+ * хранятся в памяти в течение {@code roadmap.jobs.retention} и удаляются периодической очисткой.
+ */
+@Service
+@Slf4j
+public class RoadmapJobService {
+
+    static final String NO_VALID_SURVEY = "Не найдена валидная анкета. Сначала заполните и сохраните анкету.";
+    static final String GENERATION_FAILED = "Ошибка при формировании путеводителя";
+
+    private final RoadmapService roadmapService;
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final Duration retention;
+    // задания в очереди и в работе
+    private final AtomicInteger unfinished = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, RoadmapJob> jobs = new ConcurrentHashMap<>();
+
+    public RoadmapJobService(RoadmapService roadmapService,
+                             @Value("${roadmap.jobs.max-concurrency:10}") int maxConcurrency,
+                             @Value("${roadmap.jobs.max-queued:1000}") int maxQueued,
+                             @Value("${roadmap.jobs.retention:10m}") Duration retention) {
+        this.roadmapService = roadmapService;
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxQueued = maxQueued;
+        this.retention = retention;
+    }
+
+    /**
+     * Ставит задание в очередь. Если незавершенных заданий уже {@code roadmap.jobs.max-queued},
+     * задание не создается и возвращается пустой результат.
+     */
+    public Optional<RoadmapJobDTO> submit(UUID applicantId) {
+        if (unfinished.incrementAndGet() > maxQueued) {
+            unfinished.decrementAndGet();
+            log.warn("Rejected roadmap job: {} jobs already queued", maxQueued);
+            return Optional.empty();
+        }
+
+        RoadmapJob job = new RoadmapJob(UUID.randomUUID().toString(), applicantId);
+        jobs.put(job.id, job);
+        executor.execute(() -> run(job));
+
+        log.info("Submitted roadmap job {}", job.id);
+        return Optional.of(job.toDTO());
+    }
+
+    /**
+     * Ожидает завершения задания не дольше {@code timeout} без блокировки потока запроса
+     * и возвращает его состояние на момент завершения или истечения ожидания. Задания других
+     * заявителей не возвращаются.
+     */
+    public Optional<CompletableFuture<RoadmapJobDTO>> await(UUID applicantId, String jobId, Duration timeout) {
+        RoadmapJob job = jobs.get(jobId);
+        if (job == null || !job.applicantId.equals(applicantId)) {
+            return Optional.empty();
+        }
+        if (timeout.isZero() || job.done.isDone()) {
+            return Optional.of(CompletableFuture.completedFuture(job.toDTO()));
+        }
+        return Optional.of(job.done.copy()
+                .completeOnTimeout(null, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(ignored -> job.toDTO()));
+    }
+
+    private void run(RoadmapJob job) {
+        try {
+            generate(job);
+        } finally {
+            unfinished.decrementAndGet();
+        }
+    }
+
+    private void generate(RoadmapJob job) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(RoadmapJobStatus.FAILED, null, GENERATION_FAILED);
+            return;
+        }
+
+        try {
+            job.status = RoadmapJobStatus.RUNNING;
+            Optional<RoadmapDTO> roadmap = roadmapService.buildCurrentRoadmap(job.applicantId);
+            if (roadmap.isPresent()) {
+                job.finish(RoadmapJobStatus.DONE, roadmap.get(), null);
+            } else {
+                job.finish(RoadmapJobStatus.FAILED, null, NO_VALID_SURVEY);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error running roadmap job {}", job.id, e);
+            job.finish(RoadmapJobStatus.FAILED, null, GENERATION_FAILED);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${roadmap.jobs.sweep-interval:1m}")
+    public void evictExpired() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(threshold));
+        log.debug("Evicted {} expired roadmap jobs", before - jobs.size());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class RoadmapJob {
+
+        private final String id;
+        private final UUID applicantId;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile RoadmapJobStatus status = RoadmapJobStatus.PENDING;
+        private volatile RoadmapDTO roadmap;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private RoadmapJob(String id, UUID applicantId) {
+            this.id = id;
+            this.applicantId = applicantId;
+        }
+
+        private void finish(RoadmapJobStatus status, RoadmapDTO roadmap, String error) {
+            this.roadmap = roadmap;
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+            done.complete(null);
+        }
+
+        private RoadmapJobDTO toDTO() {
+            // статус читается первым: после DONE/FAILED результат уже записан
+            RoadmapJobStatus current = status;
+            return RoadmapJobDTO.builder()
+                    .jobId(id)
+                    .status(current)
+                    .roadmap(roadmap)
+                    .error(error)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -1,22 +1,37 @@
 package com.utmn.fms.roadmap.service;
 
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
 import com.utmn.fms.roadmap.dto.RecommendationDTO;
 import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSummaryDTO;
 import com.utmn.fms.roadmap.dto.SurveyDTO;
 import com.utmn.fms.roadmap.entity.Recommendation;
 import com.utmn.fms.roadmap.entity.Roadmap;
 import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.event.RoadmapCreatedEvent;
+import com.utmn.fms.roadmap.repository.RoadmapRecommendationRow;
 import com.utmn.fms.roadmap.repository.RoadmapRepository;
 import com.utmn.fms.roadmap.repository.SurveyRepository;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import com.utmn.fms.roadmap.rules.RuleInput;
+import com.utmn.fms.roadmap.rules.RuleResult;
+import com.utmn.fms.roadmap.rules.RuleSet;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -25,113 +40,229 @@ public class RoadmapService {
 
     private final RoadmapRepository roadmapRepository;
     private final SurveyRepository surveyRepository;
+    private final RecommendationRuleEngine ruleEngine;
+    private final RecommendationTemplateService templateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DeadlineDashboardService dashboardService;
+    private final CompactRoadmapStore roadmapStore;
+    private final TransactionTemplate transactionTemplate;
 
-    @Transactional
+    // ограничение schema.sql: один путеводитель на анкету и входные данные при том же действующем
+    private static final String ROADMAP_CONSTRAINT = "uk_roadmap_survey_input";
+
+    @Timed(value = "roadmap.build", histogram = true)
     public RoadmapDTO buildRoadmap(SurveyDTO surveyDTO) {
         log.info("Building roadmap for survey id: {}", surveyDTO.getId());
 
-        Survey survey = surveyRepository.findById(surveyDTO.getId())
-                .orElseThrow(() -> new RuntimeException("Survey not found"));
+        return build(() -> Optional.of(surveyRepository.findById(surveyDTO.getId())
+                .orElseThrow(() -> new RuntimeException("Survey not found"))))
+                .orElseThrow();
+    }
 
-        Roadmap roadmap = new Roadmap();
-        roadmap.setSurvey(survey);
-        roadmap.setCreatedDate(LocalDate.now());
+    /**
+     * Формирует путеводитель по последней валидной анкете заявителя. Анкета читается одним
+     * запросом в той же транзакции; пусто, если валидной анкеты нет.
+     */
+    @Timed(value = "roadmap.build", histogram = true)
+    public Optional<RoadmapDTO> buildCurrentRoadmap(UUID applicantId) {
+        log.info("Building roadmap for last valid survey");
+        return build(() -> surveyRepository.findLastValidSurvey(applicantId));
+    }
 
-        List<Recommendation> recommendations = generateRecommendations(survey, roadmap);
-        roadmap.setRecommendations(recommendations);
+    /**
+     * Формирует путеводитель в собственной транзакции. Если параллельный запрос успел сохранить
+     * такой же путеводитель, вставка нарушает {@code uk_roadmap_survey_input}, и повторная попытка
+     * в новой транзакции возвращает сохраненный им.
+     */
+    private Optional<RoadmapDTO> build(Supplier<Optional<Survey>> survey) {
+        try {
+            return transactionTemplate.execute(status -> survey.get().map(this::buildRoadmap));
+        } catch (DataIntegrityViolationException e) {
+            if (!Constraints.isViolated(e, ROADMAP_CONSTRAINT)) {
+                throw e;
+            }
+            log.info("Roadmap was built concurrently, reusing the saved one");
+            return transactionTemplate.execute(status -> survey.get().map(this::buildRoadmap));
+        }
+    }
+
+    private RoadmapDTO buildRoadmap(Survey survey) {
+        // повторный запрос по той же анкете и тем же правилам возвращает сохраненный путеводитель,
+        // пока он действующий; после смены действующего (другая анкета, откат правил) формируется новый
+        RuleSet ruleSet = ruleEngine.getRuleSet();
+        RuleInput input = RuleInput.from(survey);
+        String inputHash = ruleSet.inputHash(input);
+        Long currentId = roadmapRepository.findCurrentRoadmapId(survey.getApplicantId());
+        Optional<Roadmap> existing = currentId == null ? Optional.empty()
+                : roadmapRepository.findByIdAndSurveyIdAndInputHash(currentId, survey.getId(), inputHash);
+        if (existing.isPresent()) {
+            log.info("Reusing roadmap {} for survey id: {}", existing.get().getId(), survey.getId());
+            return convertToDTO(existing.get());
+        }
 
-        Roadmap saved = roadmapRepository.save(roadmap);
+        Roadmap roadmap = createRoadmap(survey, ruleSet, input, inputHash);
+        if (currentId != null) {
+            roadmap.setPreviousId(currentId);
+        }
+        // вставка сразу: дубль параллельного запроса отклоняется до учета в счетчиках и в памяти
+        Roadmap saved = roadmapRepository.saveAndFlush(roadmap);
+        dashboardService.record(List.of(saved));
+        roadmapStore.put(saved);
+        eventPublisher.publishEvent(new RoadmapCreatedEvent(saved.getId(), survey.getId()));
         return convertToDTO(saved);
     }
 
-    private List<Recommendation> generateRecommendations(Survey survey, Roadmap roadmap) {
-        List<Recommendation> recommendations = new ArrayList<>();
-        int order = 1;
+    /**
+     * Состояние, от которого зависит результат {@link #buildCurrentRoadmap(UUID)}: последняя валидная
+     * анкета заявителя, ее последний путеводитель и таблица правил. Анкеты неизменяемы, поэтому пока
+     * состояние то же, повторное формирование вернет тот же путеводитель. Читается только из индексов.
+     */
+    @Transactional(readOnly = true)
+    public GenerationState generationState(UUID applicantId) {
+        String rulesChecksum = ruleEngine.getRuleSet().getChecksum();
+        return surveyRepository.findLastValidSurveyId(applicantId)
+                .map(surveyId -> new GenerationState(surveyId,
+                        roadmapRepository.findLatestIdBySurveyId(surveyId), rulesChecksum))
+                .orElseGet(() -> new GenerationState(null, null, rulesChecksum));
+    }
 
-        LocalDate entryDate = survey.getEntryDate();
+    /**
+     * Валидатор путеводителя, сформированного после чтения {@code before}. Пусто, если за время
+     * формирования сменилась таблица правил.
+     */
+    public Optional<ResourceVersion> generatedVersion(GenerationState before, RoadmapDTO roadmap) {
+        if (before.surveyId() == null || !before.rulesChecksum().equals(ruleEngine.getRuleSet().getChecksum())) {
+            return Optional.empty();
+        }
+        return new GenerationState(before.surveyId(), roadmap.getId(), before.rulesChecksum()).version();
+    }
 
-        // Миграционный учет (в течение 7 дней после въезда)
-        recommendations.add(Recommendation.builder()
-                .roadmap(roadmap)
-                .title("Миграционный учет")
-                .description("Необходимо встать на миграционный учет в течение 7 рабочих дней с момента въезда в Российскую Федерацию. Обратитесь в территориальное подразделение МВД России или в многофункциональный центр (МФЦ).")
-                .executionDate(entryDate.plusDays(7))
-                .displayOrder(order++)
-                .build());
+    /**
+     * Валидатор путеводителя заявителя по id: путеводители не изменяются, проверяется только
+     * их наличие (в памяти или по первичному ключу).
+     */
+    public Optional<ResourceVersion> roadmapVersion(UUID applicantId, Long roadmapId) {
+        boolean exists = roadmapStore.contains(roadmapId, applicantId)
+                || roadmapRepository.existsByIdAndApplicantId(roadmapId, applicantId);
+        return exists ? Optional.of(ResourceVersion.of("roadmap-" + roadmapId)) : Optional.empty();
+    }
+
+    /**
+     * Формирует несохраненный путеводитель с рекомендациями для анкеты.
+     */
+    public Roadmap createRoadmap(Survey survey) {
+        RuleSet ruleSet = ruleEngine.getRuleSet();
+        RuleInput input = RuleInput.from(survey);
+        return createRoadmap(survey, ruleSet, input, ruleSet.inputHash(input));
+    }
+
+    private Roadmap createRoadmap(Survey survey, RuleSet ruleSet, RuleInput input, String inputHash) {
+        Roadmap roadmap = new Roadmap();
+        roadmap.setSurvey(survey);
+        roadmap.setApplicantId(survey.getApplicantId());
+        roadmap.setCreatedDate(LocalDate.now());
+        roadmap.setInputHash(inputHash);
+        roadmap.setRecommendations(generateRecommendations(ruleSet, ruleSet.evaluate(input), roadmap));
+        return roadmap;
+    }
 
-        // Дактилоскопия
-        if (!survey.getHasFingerprints()) {
-            recommendations.add(Recommendation.builder()
-                    .roadmap(roadmap)
-                    .title("Прохождение дактилоскопии")
-                    .description("Необходимо пройти процедуру дактилоскопической регистрации в территориальном органе МВД России. Запишитесь на прием заранее через официальный сайт или по телефону.")
-                    .executionDate(entryDate.plusDays(14))
-                    .displayOrder(order++)
-                    .build());
+    private List<Recommendation> generateRecommendations(RuleSet ruleSet, List<RuleResult> results, Roadmap roadmap) {
+        List<Recommendation> recommendations = new ArrayList<>(results.size());
+
+        for (RuleResult result : results) {
+            Recommendation recommendation = new Recommendation();
+            recommendation.setRoadmap(roadmap);
+            recommendation.setTemplateId(templateService.templateId(ruleSet, result.templateKey()));
+            recommendation.setParameters(result.parameters());
+            recommendation.setExecutionDate(result.executionDate());
+            recommendation.setDisplayOrder(result.displayOrder());
+            recommendations.add(recommendation);
         }
 
-        // Медосмотр
-        if (!survey.getHasMedicalExam()) {
-            recommendations.add(Recommendation.builder()
-                    .roadmap(roadmap)
-                    .title("Медицинское освидетельствование")
-                    .description("Пройдите медицинское освидетельствование в медицинской организации, имеющей соответствующую лицензию. Получите сертификат об отсутствии ВИЧ-инфекции, сертификат об отсутствии инфекционных заболеваний и сертификат об отсутствии наркозависимости.")
-                    .executionDate(entryDate.plusDays(21))
-                    .displayOrder(order++)
-                    .build());
+        return recommendations;
+    }
+
+    /**
+     * Текущий путеводитель заявителя из хранилища в памяти, иначе одним запросом-проекцией
+     * без загрузки сущностей.
+     */
+    public Optional<RoadmapDTO> findCurrentRoadmap(UUID applicantId) {
+        log.info("Finding current roadmap");
+        Optional<RoadmapDTO> stored = roadmapStore.findActive(applicantId);
+        if (stored.isPresent()) {
+            return stored;
         }
+        return toDTO(roadmapRepository.findCurrentRoadmapRows(applicantId));
+    }
 
-        // Разрешение на работу или патент (если цель - работа)
-        if ("работа".equalsIgnoreCase(survey.getPurposeOfStay()) ||
-                "трудоустройство".equalsIgnoreCase(survey.getPurposeOfStay())) {
-            recommendations.add(Recommendation.builder()
-                    .roadmap(roadmap)
-                    .title("Получение патента на работу")
-                    .description("Для осуществления трудовой деятельности необходимо получить патент. Обратитесь в территориальное подразделение МВД России с необходимыми документами (паспорт, миграционная карта, фотографии, медицинские сертификаты, документ об оплате патента).")
-                    .executionDate(entryDate.plusDays(30))
-                    .displayOrder(order++)
-                    .build());
+    /**
+     * Путеводитель заявителя по id: действующие читаются из памяти, прежние — из БД.
+     */
+    public Optional<RoadmapDTO> findRoadmap(UUID applicantId, Long roadmapId) {
+        Optional<RoadmapDTO> stored = roadmapStore.find(roadmapId, applicantId);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        return toDTO(roadmapRepository.findRoadmapRows(roadmapId, applicantId));
+    }
+
+    private Optional<RoadmapDTO> toDTO(List<RoadmapRecommendationRow> rows) {
+        if (rows.isEmpty()) {
+            return Optional.empty();
         }
 
-        // Продление срока пребывания (если срок больше 90 дней)
-        if (survey.getDurationOfStay() > 90) {
-            recommendations.add(Recommendation.builder()
-                    .roadmap(roadmap)
-                    .title("Продление срока временного пребывания")
-                    .description("Если планируемый срок пребывания превышает 90 дней, необходимо подать заявление о продлении срока временного пребывания в территориальное подразделение МВД России.")
-                    .executionDate(entryDate.plusDays(60))
-                    .displayOrder(order++)
-                    .build());
+        List<RecommendationDTO> recommendations = new ArrayList<>(rows.size());
+        for (RoadmapRecommendationRow row : rows) {
+            if (row.recommendationId() != null) {
+                recommendations.add(convertToDTO(row));
+            }
         }
 
-        // Напоминание о выезде
-        recommendations.add(Recommendation.builder()
-                .roadmap(roadmap)
-                .title("Выезд из Российской Федерации")
-                .description(String.format("Срок вашего пребывания истекает. Убедитесь, что вы покинете территорию Российской Федерации до %s или продлите документы на пребывание.",
-                        entryDate.plusDays(survey.getDurationOfStay()).toString()))
-                .executionDate(entryDate.plusDays(survey.getDurationOfStay() - 7))
-                .displayOrder(order++)
+        RoadmapRecommendationRow first = rows.get(0);
+        return Optional.of(RoadmapDTO.builder()
+                .id(first.roadmapId())
+                .createdDate(first.createdDate())
+                .recommendations(recommendations)
                 .build());
+    }
 
-        return recommendations;
+    /**
+     * История путеводителей заявителя от новых к старым; тексты рекомендаций не загружаются.
+     */
+    @Transactional(readOnly = true)
+    public HistoryPageDTO<RoadmapSummaryDTO> findHistory(UUID applicantId, String cursor, int size) {
+        HistoryCursor after = HistoryCursor.decode(cursor);
+        int pageSize = HistoryCursor.pageSize(size);
+        return HistoryCursor.page(roadmapRepository.findHistory(applicantId, after.id(), Limit.of(pageSize + 1)),
+                pageSize, roadmap -> new HistoryCursor(null, roadmap.getId()));
     }
 
-    public Optional<RoadmapDTO> findCurrentRoadmap() {
-        log.info("Finding current roadmap");
-        return roadmapRepository.findCurrentRoadmap()
-                .map(this::convertToDTO);
+    /**
+     * Id текущего путеводителя заявителя: из хранилища в памяти, иначе по индексу idx_roadmap_applicant.
+     */
+    public Optional<Long> findCurrentRoadmapId(UUID applicantId) {
+        Optional<Long> stored = roadmapStore.findActiveId(applicantId);
+        if (stored.isPresent()) {
+            return stored;
+        }
+        return Optional.ofNullable(roadmapRepository.findCurrentRoadmapId(applicantId));
+    }
+
+    public record GenerationState(Long surveyId, Long roadmapId, String rulesChecksum) {
+
+        public Optional<ResourceVersion> version() {
+            if (roadmapId == null) {
+                return Optional.empty();
+            }
+            return Optional.of(ResourceVersion.of("generate-" + surveyId + "-" + roadmapId
+                    + "-" + rulesChecksum.substring(0, 16)));
+        }
     }
 
-    private RoadmapDTO convertToDTO(Roadmap roadmap) {
+    RoadmapDTO convertToDTO(Roadmap roadmap) {
         List<RecommendationDTO> recommendationDTOs = roadmap.getRecommendations().stream()
-                .map(rec -> RecommendationDTO.builder()
-                        .id(rec.getId())
-                        .title(rec.getTitle())
-                        .description(rec.getDescription())
-                        .executionDate(rec.getExecutionDate())
-                        .displayOrder(rec.getDisplayOrder())
-                        .build())
+                .map(rec -> convertToDTO(rec.getId(), rec.getTemplateId(), rec.getParameters(),
+                        rec.getExecutionDate(), rec.getDisplayOrder()))
                 .toList();
 
         return RoadmapDTO.builder()
@@ -140,4 +271,20 @@ public class RoadmapService {
                 .recommendations(recommendationDTOs)
                 .build();
     }
-}
\ No newline at end of file
+
+    RecommendationDTO convertToDTO(RoadmapRecommendationRow row) {
+        return convertToDTO(row.recommendationId(), row.templateId(), row.parameters(),
+                row.executionDate(), row.displayOrder());
+    }
+
+    private RecommendationDTO convertToDTO(Long id, Long templateId, String parameters,
+                                          LocalDate executionDate, Integer displayOrder) {
+        return RecommendationDTO.builder()
+                .id(id)
+                .title(templateService.title(templateId))
+                .description(templateService.description(templateId, parameters))
+                .executionDate(executionDate)
+                .displayOrder(displayOrder)
+                .build();
+    }
+}
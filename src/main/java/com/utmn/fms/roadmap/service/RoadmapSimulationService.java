@@ -0,0 +1,126 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapSimulationDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationRequestDTO;
+import com.utmn.fms.roadmap.dto.SimulationResultDTO;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import com.utmn.fms.roadmap.rules.RuleInput;
+import com.utmn.fms.roadmap.rules.RuleResult;
+import com.utmn.fms.roadmap.rules.RuleSet;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Моделирование путеводителей без анкет и без обращения к БД. Правила — чистая функция
+ * {@link RuleSet#evaluate(RuleInput)}, поэтому сочетания сетки вычисляются независимо
+ * и параллельно в общем fork-join пуле. Все сочетания одного запроса считаются по одной
+ * версии таблицы правил.
+ */
+@Service
+@Slf4j
+public class RoadmapSimulationService {
+
+    private final RecommendationRuleEngine ruleEngine;
+    private final int maxCombinations;
+
+    public RoadmapSimulationService(RecommendationRuleEngine ruleEngine,
+                                    @Value("${roadmap.simulation.max-combinations:100000}") int maxCombinations) {
+        this.ruleEngine = ruleEngine;
+        this.maxCombinations = maxCombinations;
+    }
+
+    @Timed(value = "roadmap.simulate", histogram = true)
+    public RoadmapSimulationDTO simulate(RoadmapSimulationRequestDTO request) {
+        long started = System.nanoTime();
+        Grid grid = new Grid(request);
+        long size = grid.size();
+        if (size > maxCombinations) {
+            throw new SimulationLimitExceededException(size, maxCombinations);
+        }
+
+        RuleSet ruleSet = ruleEngine.getRuleSet();
+        List<SimulationResultDTO> results = IntStream.range(0, (int) size)
+                .parallel()
+                .mapToObj(index -> evaluate(ruleSet, grid, index))
+                .toList();
+        Map<String, String> rules = new LinkedHashMap<>();
+        ruleSet.templates().forEach(template -> rules.put(template.ruleId(), template.title()));
+
+        long elapsed = (System.nanoTime() - started) / 1_000_000;
+        log.info("Simulated {} roadmaps with rules version {} in {} ms", size, ruleSet.getVersion(), elapsed);
+        return RoadmapSimulationDTO.builder()
+                .ruleSetVersion(ruleSet.getVersion())
+                .combinations((int) size)
+                .elapsedMillis(elapsed)
+                .rules(rules)
+                .results(results)
+                .build();
+    }
+
+    private static SimulationResultDTO evaluate(RuleSet ruleSet, Grid grid, int index) {
+        // индекс раскладывается по измерениям сетки как число со смешанным основанием
+        RoadmapSimulationRequestDTO request = grid.request;
+        LocalDate entryDate = request.getEntryDates().get(index % grid.entryDates);
+        index /= grid.entryDates;
+        Integer durationOfStay = request.getDurationsOfStay().get(index % grid.durations);
+        index /= grid.durations;
+        String purposeOfStay = request.getPurposesOfStay().get(index % grid.purposes);
+        index /= grid.purposes;
+        String citizenship = request.getCitizenships().get(index % grid.citizenships);
+        index /= grid.citizenships;
+        Boolean hasFingerprints = request.getHasFingerprints().get(index % grid.fingerprints);
+        index /= grid.fingerprints;
+        Boolean hasMedicalExam = request.getHasMedicalExam().get(index % grid.medicalExams);
+
+        List<RuleResult> recommendations = ruleSet.evaluate(new RuleInput(
+                entryDate, purposeOfStay, citizenship, durationOfStay, hasFingerprints, hasMedicalExam));
+        Map<String, LocalDate> deadlines = new LinkedHashMap<>(recommendations.size() * 2);
+        for (RuleResult recommendation : recommendations) {
+            deadlines.put(recommendation.ruleId(), recommendation.executionDate());
+        }
+
+        return SimulationResultDTO.builder()
+                .entryDate(entryDate)
+                .durationOfStay(durationOfStay)
+                .purposeOfStay(purposeOfStay)
+                .citizenship(citizenship)
+                .hasFingerprints(hasFingerprints)
+                .hasMedicalExam(hasMedicalExam)
+                .deadlines(deadlines)
+                .build();
+    }
+
+    private static final class Grid {
+
+        final RoadmapSimulationRequestDTO request;
+        final int entryDates;
+        final int durations;
+        final int purposes;
+        final int citizenships;
+        final int fingerprints;
+        final int medicalExams;
+
+        Grid(RoadmapSimulationRequestDTO request) {
+            this.request = request;
+            this.entryDates = request.getEntryDates().size();
+            this.durations = request.getDurationsOfStay().size();
+            this.purposes = request.getPurposesOfStay().size();
+            this.citizenships = request.getCitizenships().size();
+            this.fingerprints = request.getHasFingerprints().size();
+            this.medicalExams = request.getHasMedicalExam().size();
+        }
+
+        long size() {
+            // каждое измерение не больше размера тела запроса, произведение не переполняет long
+            return (long) entryDates * durations * purposes * citizenships * fingerprints * medicalExams;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.utmn.fms.roadmap.service;
+
+import lombok.Getter;
+
+/**
+ * Сетка моделирования содержит больше сочетаний, чем {@code roadmap.simulation.max-combinations}.
+ */
+@Getter
+public class SimulationLimitExceededException extends RuntimeException {
+
+    private final long combinations;
+    private final int limit;
+
+    public SimulationLimitExceededException(long combinations, int limit) {
+        super("Too many combinations: " + combinations + " (limit " + limit + ")");
+        this.combinations = combinations;
+        this.limit = limit;
+    }
+}
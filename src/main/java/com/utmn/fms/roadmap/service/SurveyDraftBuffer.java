@@ -0,0 +1,253 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import com.utmn.fms.roadmap.repository.SurveyStamp;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Буфер отложенной записи черновиков. Повторные сохранения одной анкеты заменяют друг
+ * друга в памяти, а в таблицу {@code surveys} попадает только последняя версия: по таймеру,
+ * при подтверждении анкеты, при переполнении буфера и при остановке приложения. Если буфер
+ * полон и освободить его не удалось, черновик записывается сразу, в потоке запроса.
+ * <p>
+ * Черновики записываются одним пакетом; если пакет не записан, черновики записываются
+ * по одному, и черновик, нарушающий ограничения таблицы, удаляется из буфера, чтобы не
+ * блокировать запись остальных.
+ * <p>
+ * Черновик в буфере принадлежит заявителю, который его сохранил: другой заявитель не может
+ * ни заменить, ни изменить его.
+ */
+@Component
+@Slf4j
+public class SurveyDraftBuffer implements MeterBinder {
+
+    private final SurveyRepository surveyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // последний сохраненный черновик заявителя; новее всего, что есть в БД, пока не записан
+    private final Map<UUID, Pending> latest = new ConcurrentHashMap<>();
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public SurveyDraftBuffer(SurveyRepository surveyRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${roadmap.drafts.max-pending:10000}") int maxPending) {
+        this.surveyRepository = surveyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Черновик анкеты ожидает записи в буфере от имени заявителя.
+     */
+    public boolean isPending(UUID applicantId, Long surveyId) {
+        Pending draft = pending.get(surveyId);
+        return draft != null && draft.applicantId().equals(applicantId);
+    }
+
+    /**
+     * Откладывает запись черновика существующей анкеты заявителя. Возвращает {@code false},
+     * если в буфере ожидает черновик этой анкеты другого заявителя.
+     */
+    public boolean offer(UUID applicantId, SurveyDTO draft) {
+        Pending offered = new Pending(applicantId, draft, LocalDateTime.now());
+        if (pending.size() >= maxPending && !pending.containsKey(draft.getId())) {
+            // буфер полон: записываем накопленное в потоке запроса
+            flush();
+            if (pending.size() >= maxPending) {
+                // записать накопленное не удалось — черновик не добавляется, а записывается сразу
+                write(Map.of(draft.getId(), offered));
+                latest.remove(applicantId);
+                return true;
+            }
+        }
+        Pending previous = pending.get(draft.getId());
+        Pending current = pending.merge(draft.getId(), offered,
+                (owned, next) -> owned.applicantId().equals(applicantId) ? next : owned);
+        if (current != offered) {
+            return false;
+        }
+        latest.put(applicantId, offered);
+        (previous != null ? coalesced : buffered).increment();
+        return true;
+    }
+
+    /**
+     * Применяет изменение к черновику заявителя, ожидающему записи. Пусто, если такого черновика в буфере нет.
+     */
+    public Optional<SurveyDTO> update(UUID applicantId, Long surveyId, UnaryOperator<SurveyDTO> change) {
+        // черновик заменяется новым объектом: запись в БД сравнивает версии по ссылке
+        Pending updated = pending.computeIfPresent(surveyId, (id, draft) -> draft.applicantId().equals(applicantId)
+                ? new Pending(applicantId, change.apply(draft.draft()), LocalDateTime.now())
+                : draft);
+        if (updated == null || !updated.applicantId().equals(applicantId)) {
+            return Optional.empty();
+        }
+        latest.put(applicantId, updated);
+        coalesced.increment();
+        return Optional.of(updated.draft());
+    }
+
+    /**
+     * Черновик, сохраненный заявителем последним, если он еще не записан в БД.
+     */
+    public Optional<SurveyDTO> latestPending(UUID applicantId) {
+        return latest(applicantId).map(Pending::draft);
+    }
+
+    /**
+     * Id и время сохранения черновика, возвращаемого {@link #latestPending(UUID)}.
+     */
+    public Optional<SurveyStamp> latestPendingStamp(UUID applicantId) {
+        return latest(applicantId).map(draft -> new SurveyStamp(draft.draft().getId(), draft.savedAt()));
+    }
+
+    private Optional<Pending> latest(UUID applicantId) {
+        Pending current = latest.get(applicantId);
+        return current != null && pending.get(current.draft().getId()) == current
+                ? Optional.of(current) : Optional.empty();
+    }
+
+    /**
+     * Сбрасывает признак последнего черновика заявителя, когда более новый записан в БД напрямую.
+     */
+    public void resetLatest(UUID applicantId) {
+        latest.remove(applicantId);
+    }
+
+    @Scheduled(fixedDelayString = "${roadmap.drafts.flush-interval:5s}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Pending> drafts = Map.copyOf(pending);
+        try {
+            write(drafts);
+        } catch (RuntimeException e) {
+            log.warn("Error flushing {} survey drafts, writing them one by one", drafts.size(), e);
+            writeEach(drafts);
+        }
+    }
+
+    private void writeEach(Map<Long, Pending> drafts) {
+        for (Map.Entry<Long, Pending> draft : drafts.entrySet()) {
+            try {
+                write(Map.of(draft.getKey(), draft.getValue()));
+            } catch (DataIntegrityViolationException e) {
+                // такой черновик не будет записан никогда
+                log.error("Dropping survey draft id: {} rejected by the database", draft.getKey(), e);
+                pending.remove(draft.getKey(), draft.getValue());
+                latest.remove(draft.getValue().applicantId(), draft.getValue());
+                dropped.increment();
+            } catch (RuntimeException e) {
+                // БД недоступна: черновики остаются в буфере до следующей попытки
+                log.error("Error flushing survey draft id: {}", draft.getKey(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Записывает черновик анкеты, если он ожидает записи, в собственной транзакции. Вызывается
+     * из {@link SurveyService#createNewVersion} до попыток подтверждения, чтобы новая версия
+     * строилась по последним ответам.
+     */
+    public void flush(Long surveyId) {
+        Pending draft = pending.get(surveyId);
+        if (draft != null) {
+            write(Map.of(surveyId, draft));
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        log.info("Flushing {} survey drafts before shutdown", pending.size());
+        flush();
+    }
+
+    private void write(Map<Long, Pending> drafts) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Survey> surveys = surveyRepository.findAllById(drafts.keySet()).stream()
+                    .collect(Collectors.toMap(Survey::getId, Function.identity()));
+
+            drafts.forEach((id, pendingDraft) -> {
+                Survey survey = surveys.get(id);
+                if (survey == null || !survey.getApplicantId().equals(pendingDraft.applicantId())) {
+                    log.warn("Dropping draft for missing survey id: {}", id);
+                    return;
+                }
+                SurveyDTO draft = pendingDraft.draft();
+                survey.setFullName(draft.getFullName());
+                survey.setCitizenship(draft.getCitizenship());
+                survey.setEntryDate(draft.getEntryDate());
+                survey.setPurposeOfStay(draft.getPurposeOfStay());
+                survey.setDurationOfStay(draft.getDurationOfStay());
+                survey.setHasFingerprints(draft.getHasFingerprints());
+                survey.setHasMedicalExam(draft.getHasMedicalExam());
+                survey.setIsDraft(true);
+                survey.setIsValid(false);
+            });
+
+            // убираем из буфера только после фиксации и только если черновик не сменился
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drafts.forEach((id, draft) -> {
+                        pending.remove(id, draft);
+                        latest.remove(draft.applicantId(), draft);
+                    });
+                    flushed.add(drafts.size());
+                }
+            });
+        });
+        log.debug("Flushed {} survey drafts", drafts.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("survey.drafts.pending", pending, Map::size)
+                .register(registry);
+        FunctionCounter.builder("survey.drafts.saves", buffered, LongAdder::sum)
+                .tag("result", "buffered")
+                .register(registry);
+        FunctionCounter.builder("survey.drafts.saves", coalesced, LongAdder::sum)
+                .tag("result", "coalesced")
+                .register(registry);
+        FunctionCounter.builder("survey.drafts.flushed", flushed, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("survey.drafts.dropped", dropped, LongAdder::sum)
+                .register(registry);
+    }
+
+    private record Pending(UUID applicantId, SurveyDTO draft, LocalDateTime savedAt) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.utmn.fms.roadmap.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Формат файла массового импорта анкет.
+ */
+public enum SurveyImportFormat {
+
+    /**
+     * CSV с заголовком из имен полей анкеты ({@code fullName,citizenship,...}), разделитель — запятая.
+     */
+    CSV("text/csv"),
+
+    /**
+     * Одна анкета в формате JSON на строку.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    SurveyImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static SurveyImportFormat fromContentType(String contentType) {
+        MediaType type = MediaType.parseMediaType(contentType);
+        for (SurveyImportFormat format : values()) {
+            if (type.isCompatibleWith(MediaType.parseMediaType(format.mediaType))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import format: " + contentType);
+    }
+}
@@ -0,0 +1,266 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.SurveyImportErrorDTO;
+import com.utmn.fms.roadmap.dto.SurveyImportReportDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Массовый импорт анкет из CSV или NDJSON. Файл читается построчно порциями по
+ * {@code roadmap.import.chunk-size} строк: строки порции разбираются и проверяются параллельно,
+ * принятые анкеты сохраняются JDBC-пакетом в отдельной транзакции. В памяти одновременно
+ * находится только одна порция, поэтому размер файла не ограничен.
+ * <p>
+ * Анкеты сохраняются черновиками, как при {@code POST /api/survey/submit}. Заявитель строки
+ * задается обязательным полем {@value #APPLICANT_FIELD} (ключ из заголовка {@code X-Applicant-Id}):
+ * анкета без заявителя никому не доступна, поэтому такая строка отклоняется.
+ */
+@Service
+@Slf4j
+public class SurveyImportService {
+
+    public static final String APPLICANT_FIELD = "applicantId";
+
+    private final SurveyService surveyService;
+    private final SurveyRepository surveyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public SurveyImportService(SurveyService surveyService,
+                               SurveyRepository surveyRepository,
+                               TransactionTemplate transactionTemplate,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               @Value("${roadmap.import.chunk-size:1000}") int chunkSize,
+                               @Value("${roadmap.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.surveyService = surveyService;
+        this.surveyRepository = surveyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Timed(value = "survey.import", histogram = true)
+    public SurveyImportReportDTO importSurveys(InputStream body, SurveyImportFormat format) throws IOException {
+        long started = System.nanoTime();
+        SurveyImportReportDTO report = new SurveyImportReportDTO();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        int lineNumber = 0;
+        LineParser parser = this::parseJson;
+        if (format == SurveyImportFormat.CSV) {
+            String header = reader.readLine();
+            lineNumber++;
+            if (header == null) {
+                return report;
+            }
+            parser = csvParser(header);
+        }
+
+        List<SourceLine> chunk = new ArrayList<>(chunkSize);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(new SourceLine(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                processChunk(chunk, parser, report);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            processChunk(chunk, parser, report);
+        }
+
+        report.setElapsedMillis((System.nanoTime() - started) / 1_000_000);
+        log.info("Imported {} of {} surveys ({} rejected) in {} ms",
+                report.getImported(), report.getProcessed(), report.getRejected(), report.getElapsedMillis());
+        return report;
+    }
+
+    private void processChunk(List<SourceLine> chunk, LineParser parser, SurveyImportReportDTO report) {
+        // разбор и проверка не зависят друг от друга и идут параллельно; порядок строк сохраняется
+        List<ParsedLine> parsed = chunk.parallelStream()
+                .map(line -> parse(line, parser))
+                .toList();
+
+        List<Survey> accepted = new ArrayList<>(parsed.size());
+        List<ParsedLine> acceptedLines = new ArrayList<>(parsed.size());
+        for (ParsedLine line : parsed) {
+            if (line.errors().isEmpty()) {
+                accepted.add(toDraft(line.survey(), line.applicantId()));
+                acceptedLines.add(line);
+            } else {
+                reject(report, line.number(), line.errors());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> surveyRepository.saveAll(accepted));
+            report.setImported(report.getImported() + accepted.size());
+        } catch (RuntimeException e) {
+            log.error("Error saving imported surveys from lines {}-{}",
+                    chunk.get(0).number(), chunk.get(chunk.size() - 1).number(), e);
+            acceptedLines.forEach(line -> reject(report, line.number(), Map.of("line", "Ошибка при сохранении анкеты")));
+        }
+        report.setProcessed(report.getProcessed() + chunk.size());
+    }
+
+    private ParsedLine parse(SourceLine line, LineParser parser) {
+        SurveyDTO survey;
+        UUID applicantId;
+        try {
+            JsonNode node = parser.parse(line.text());
+            // ключ заявителя не входит в SurveyDTO и извлекается до разбора анкеты
+            JsonNode applicant = node instanceof ObjectNode object ? object.remove(APPLICANT_FIELD) : null;
+            if (applicant == null || applicant.isNull() || applicant.asText().isBlank()) {
+                return new ParsedLine(line.number(), null, null,
+                        Map.of(APPLICANT_FIELD, "Заявитель обязателен для заполнения"));
+            }
+            applicantId = parseApplicantId(applicant.asText());
+            if (applicantId == null) {
+                return new ParsedLine(line.number(), null, null,
+                        Map.of(APPLICANT_FIELD, "Некорректное значение"));
+            }
+            survey = objectMapper.treeToValue(node, SurveyDTO.class);
+        } catch (JsonMappingException e) {
+            String field = e.getPath().isEmpty() ? "line" : e.getPath().get(e.getPath().size() - 1).getFieldName();
+            return new ParsedLine(line.number(), null, null,
+                    Map.of(field != null ? field : "line", "Некорректное значение"));
+        } catch (JsonProcessingException e) {
+            return new ParsedLine(line.number(), null, null, Map.of("line", "Некорректный формат строки"));
+        } catch (IllegalArgumentException e) {
+            return new ParsedLine(line.number(), null, null, Map.of("line", e.getMessage()));
+        }
+
+        Map<String, String> errors = new HashMap<>();
+        validator.validate(survey).forEach(violation ->
+                errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+        return new ParsedLine(line.number(), survey, applicantId, errors);
+    }
+
+    private static UUID parseApplicantId(String value) {
+        try {
+            return UUID.fromString(value.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Survey toDraft(SurveyDTO dto, UUID applicantId) {
+        Survey survey = surveyService.convertToEntity(dto);
+        survey.setId(null);
+        survey.setVersion(null);
+        survey.setApplicantId(applicantId);
+        survey.setIsDraft(true);
+        survey.setIsValid(false);
+        return survey;
+    }
+
+    private void reject(SurveyImportReportDTO report, int line, Map<String, String> errors) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new SurveyImportErrorDTO(line, errors));
+        } else {
+            report.setErrorsTruncated(true);
+        }
+    }
+
+    private JsonNode parseJson(String line) throws JsonProcessingException {
+        return objectMapper.readTree(line);
+    }
+
+    private LineParser csvParser(String header) {
+        List<String> columns = splitCsv(header.startsWith("\uFEFF") ? header.substring(1) : header);
+        return line -> {
+            List<String> values = splitCsv(line);
+            if (values.size() != columns.size()) {
+                throw new IllegalArgumentException(
+                        "Ожидалось столбцов: " + columns.size() + ", получено: " + values.size());
+            }
+            // строковые значения приводятся к типам полей SurveyDTO так же, как при разборе JSON
+            ObjectNode node = objectMapper.createObjectNode();
+            for (int i = 0; i < columns.size(); i++) {
+                String value = values.get(i);
+                node.put(columns.get(i).trim(), value.isEmpty() ? null : value);
+            }
+            return node;
+        };
+    }
+
+    /**
+     * Разбивает строку CSV на значения; поддерживаются кавычки и удвоенные кавычки внутри них.
+     * Значения в кавычках не могут содержать перевод строки.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытые кавычки в строке");
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        JsonNode parse(String line) throws JsonProcessingException;
+    }
+
+    private record SourceLine(int number, String text) {
+    }
+
+    private record ParsedLine(int number, SurveyDTO survey, UUID applicantId, Map<String, String> errors) {
+    }
+}
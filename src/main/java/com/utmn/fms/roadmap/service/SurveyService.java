@@ -1,14 +1,24 @@
 package com.utmn.fms.roadmap.service;
 
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
 import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.SurveyPatchDTO;
+import com.utmn.fms.roadmap.dto.SurveySummaryDTO;
 import com.utmn.fms.roadmap.entity.Survey;
 import com.utmn.fms.roadmap.repository.SurveyRepository;
+import com.utmn.fms.roadmap.repository.SurveyStamp;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -16,28 +26,115 @@ import java.util.Optional;
 public class SurveyService {
 
     private final SurveyRepository surveyRepository;
+    private final SurveyDraftBuffer draftBuffer;
+    private final TransactionTemplate transactionTemplate;
 
-    public Optional<SurveyDTO> findLastDraft() {
+    // повторные попытки подтверждения при параллельном создании версии
+    private static final int MAX_VERSION_ATTEMPTS = 3;
+    // ограничение schema.sql на номер версии в пределах черновика
+    private static final String VERSION_CONSTRAINT = "uk_survey_draft_version";
+
+    // чтение проекцией сразу в DTO; readOnly отключает flush и снимки для dirty checking
+    @Transactional(readOnly = true)
+    public Optional<SurveyDTO> findLastDraft(UUID applicantId) {
         log.info("Finding last draft survey");
-        return surveyRepository.findLastDraft()
-                .map(this::convertToDTO);
+        Optional<SurveyDTO> pending = draftBuffer.latestPending(applicantId);
+        return pending.isPresent() ? pending : surveyRepository.findLastDraftDTO(applicantId);
+    }
+
+    /**
+     * Валидаторы ответа с последним черновиком: id и время изменения из буфера или из индекса,
+     * без чтения анкеты.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion lastDraftVersion(UUID applicantId) {
+        Optional<SurveyStamp> pending = draftBuffer.latestPendingStamp(applicantId);
+        return (pending.isPresent() ? pending : surveyRepository.findLastDraftStamp(applicantId))
+                .map(draft -> ResourceVersion.of("draft-" + draft.id(), draft.updatedAt()))
+                .orElseGet(() -> ResourceVersion.of("draft-none"));
     }
 
+    /**
+     * Сохраняет черновик заявителя. Пусто, если анкета с указанным id заявителю не принадлежит.
+     */
+    @Timed(value = "survey.draft.save", histogram = true)
     @Transactional
-    public SurveyDTO saveDraft(SurveyDTO surveyDTO) {
+    public Optional<SurveyDTO> saveDraft(UUID applicantId, SurveyDTO surveyDTO) {
         log.info("Saving draft survey");
+
+        // черновик существующей анкеты записывается в БД отложенно, последним сохранением;
+        // владелец проверяется по первичному ключу, пока черновика анкеты нет в буфере
+        if (surveyDTO.getId() != null) {
+            if (!draftBuffer.isPending(applicantId, surveyDTO.getId())
+                    && !surveyRepository.existsByIdAndApplicantId(surveyDTO.getId(), applicantId)) {
+                return Optional.empty();
+            }
+            surveyDTO.setIsDraft(true);
+            surveyDTO.setIsValid(false);
+            return draftBuffer.offer(applicantId, surveyDTO) ? Optional.of(surveyDTO) : Optional.empty();
+        }
+
         Survey survey = convertToEntity(surveyDTO);
+        survey.setApplicantId(applicantId);
         survey.setIsDraft(true);
         survey.setIsValid(false);
         Survey saved = surveyRepository.save(survey);
-        return convertToDTO(saved);
+        draftBuffer.resetLatest(applicantId);
+        return Optional.of(convertToDTO(saved));
     }
 
+    /**
+     * Частично изменяет черновик заявителя: в буфере, если он ожидает записи, иначе одним UPDATE
+     * только измененных столбцов. Пусто, если черновик не найден.
+     */
+    @Timed(value = "survey.draft.patch", histogram = true)
     @Transactional
-    public SurveyDTO createNewVersion(Long surveyId) {
+    public Optional<SurveyDTO> patchDraft(UUID applicantId, Long surveyId, SurveyPatchDTO patch) {
+        log.info("Patching draft survey with id: {}", surveyId);
+
+        Optional<SurveyDTO> buffered = draftBuffer.update(applicantId, surveyId, patch::applyTo);
+        if (buffered.isPresent()) {
+            return buffered;
+        }
+        if (surveyRepository.updateDraftFields(surveyId, applicantId, patch.changes()) == 0) {
+            return Optional.empty();
+        }
+        return surveyRepository.findDTOById(surveyId);
+    }
+
+    /**
+     * Подтверждает анкету новой версией без блокировок: конфликт параллельных подтверждений
+     * (lock_version исходной анкеты или уникальность номера версии) повторяется в новой транзакции.
+     * Прочие нарушения ограничений не повторяются.
+     */
+    @Timed(value = "survey.version.create", histogram = true)
+    public SurveyDTO createNewVersion(UUID applicantId, Long surveyId) {
         log.info("Creating new version of survey with id: {}", surveyId);
-        Survey existingSurvey = surveyRepository.findById(surveyId)
+        draftBuffer.flush(surveyId);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> insertNextVersion(applicantId, surveyId));
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (e instanceof DataIntegrityViolationException && !Constraints.isViolated(e, VERSION_CONSTRAINT)) {
+                    throw e;
+                }
+                if (attempt >= MAX_VERSION_ATTEMPTS) {
+                    throw new OptimisticLockingFailureException("Survey was modified concurrently", e);
+                }
+                log.warn("Concurrent version of survey {} detected, attempt {} of {}",
+                        surveyId, attempt, MAX_VERSION_ATTEMPTS);
+            }
+        }
+    }
+
+    private SurveyDTO insertNextVersion(UUID applicantId, Long surveyId) {
+        Survey existingSurvey = surveyRepository.findForNewVersionById(surveyId)
+                .filter(survey -> survey.getApplicantId().equals(applicantId))
                 .orElseThrow(() -> new RuntimeException("Survey not found"));
+        Long draftId = existingSurvey.getDraftId() != null ? existingSurvey.getDraftId() : existingSurvey.getId();
+        Integer lastVersion = surveyRepository.findMaxVersionByDraftId(draftId);
+        int nextVersion = Math.max(existingSurvey.getVersion(), lastVersion != null ? lastVersion : 0) + 1;
 
         Survey newVersion = Survey.builder()
                 .fullName(existingSurvey.getFullName())
@@ -49,20 +146,39 @@ public class SurveyService {
                 .hasMedicalExam(existingSurvey.getHasMedicalExam())
                 .isDraft(false)
                 .isValid(true)
-                .version(existingSurvey.getVersion() + 1)
+                .version(nextVersion)
+                .draftId(draftId)
+                .applicantId(applicantId)
                 .build();
 
         Survey saved = surveyRepository.save(newVersion);
         return convertToDTO(saved);
     }
 
-    public Optional<SurveyDTO> findLastValidSurvey() {
+    @Transactional(readOnly = true)
+    public Optional<SurveyDTO> findLastValidSurvey(UUID applicantId) {
         log.info("Finding last valid survey");
-        return surveyRepository.findLastValidSurvey()
-                .map(this::convertToDTO);
+        return surveyRepository.findLastValidSurveyDTO(applicantId);
+    }
+
+    /**
+     * История подтвержденных версий (по дате создания) или черновиков (по дате изменения)
+     * заявителя, от новых к старым.
+     */
+    @Transactional(readOnly = true)
+    public HistoryPageDTO<SurveySummaryDTO> findHistory(UUID applicantId, boolean drafts, String cursor, int size) {
+        HistoryCursor after = HistoryCursor.decode(cursor);
+        int pageSize = HistoryCursor.pageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        if (drafts) {
+            return HistoryCursor.page(surveyRepository.findDraftHistory(applicantId, after.position(), after.id(), limit),
+                    pageSize, survey -> new HistoryCursor(survey.getUpdatedAt(), survey.getId()));
+        }
+        return HistoryCursor.page(surveyRepository.findValidHistory(applicantId, after.position(), after.id(), limit),
+                pageSize, survey -> new HistoryCursor(survey.getCreatedAt(), survey.getId()));
     }
 
-    private SurveyDTO convertToDTO(Survey survey) {
+    SurveyDTO convertToDTO(Survey survey) {
         return SurveyDTO.builder()
                 .id(survey.getId())
                 .fullName(survey.getFullName())
@@ -78,7 +194,7 @@ public class SurveyService {
                 .build();
     }
 
-    private Survey convertToEntity(SurveyDTO dto) {
+    Survey convertToEntity(SurveyDTO dto) {
         return Survey.builder()
                 .id(dto.getId())
                 .fullName(dto.getFullName())
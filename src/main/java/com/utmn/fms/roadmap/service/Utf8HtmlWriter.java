@@ -0,0 +1,104 @@
+package com.utmn.fms.roadmap.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Буферизованная запись HTML в поток байтов. Статические фрагменты пишутся заранее
+ * закодированными массивами, динамический текст экранируется и кодируется в UTF-8
+ * прямо в буфер, без промежуточных String и byte[].
+ */
+final class Utf8HtmlWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+
+    Utf8HtmlWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void write(byte[] segment) throws IOException {
+        if (segment.length > buffer.length - count) {
+            flushBuffer();
+            if (segment.length > buffer.length) {
+                out.write(segment);
+                return;
+            }
+        }
+        System.arraycopy(segment, 0, buffer, count, segment.length);
+        count += segment.length;
+    }
+
+    void writeText(Object value) throws IOException {
+        if (value != null) {
+            writeEscaped(value.toString());
+        }
+    }
+
+    void writeEscaped(String text) throws IOException {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> writeAscii("&amp;");
+                case '<' -> writeAscii("&lt;");
+                case '>' -> writeAscii("&gt;");
+                case '"' -> writeAscii("&quot;");
+                case '\'' -> writeAscii("&#39;");
+                default -> {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        writeCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+                    } else {
+                        writeCodePoint(c);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeAscii(String value) throws IOException {
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeCodePoint(int cp) throws IOException {
+        ensureCapacity(4);
+        if (cp < 0x80) {
+            buffer[count++] = (byte) cp;
+        } else if (cp < 0x800) {
+            buffer[count++] = (byte) (0xC0 | (cp >> 6));
+            buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+        } else if (cp < 0x10000) {
+            if (Character.isSurrogate((char) cp)) {
+                // непарный суррогат заменяем на '?', как это делает String.getBytes
+                buffer[count++] = '?';
+                return;
+            }
+            buffer[count++] = (byte) (0xE0 | (cp >> 12));
+            buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+        } else {
+            buffer[count++] = (byte) (0xF0 | (cp >> 18));
+            buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+            buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+        }
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.length - count < bytes) {
+            flushBuffer();
+        }
+    }
+
+    void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
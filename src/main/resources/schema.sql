@@ -1,7 +1,13 @@
 -- schema.sql
+-- Последовательности идентификаторов (шаг совпадает с allocationSize в сущностях)
+CREATE SEQUENCE IF NOT EXISTS surveys_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS roadmaps_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS recommendations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS recommendation_templates_seq START WITH 1 INCREMENT BY 50;
+
 -- Таблица анкет
 CREATE TABLE IF NOT EXISTS surveys (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     full_name VARCHAR(255) NOT NULL,
     citizenship VARCHAR(100) NOT NULL,
     entry_date DATE NOT NULL,
@@ -12,31 +18,80 @@ CREATE TABLE IF NOT EXISTS surveys (
     is_draft BOOLEAN NOT NULL DEFAULT TRUE,
     is_valid BOOLEAN NOT NULL DEFAULT FALSE,
     version INT NOT NULL DEFAULT 1,
+    draft_id BIGINT,
+    -- заявитель (ключ сессии), которому принадлежит анкета
+    applicant_id UUID NOT NULL,
+    lock_version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- номер версии уникален в пределах черновика заявителя
+    CONSTRAINT uk_survey_draft_version UNIQUE (draft_id, version)
 );
 
 -- Таблица путеводителей
 CREATE TABLE IF NOT EXISTS roadmaps (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     survey_id BIGINT NOT NULL,
+    applicant_id UUID NOT NULL,
     created_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    input_hash CHAR(64),
+    -- действующий путеводитель заявителя на момент формирования (0 — первый); путеводитель по тем же
+    -- анкете и правилам формируется заново только после смены действующего, параллельный дубль отклоняется
+    previous_id BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_roadmap_survey_input UNIQUE (survey_id, input_hash, previous_id),
     CONSTRAINT fk_roadmap_survey FOREIGN KEY (survey_id) REFERENCES surveys(id) ON DELETE CASCADE
 );
 
+-- Справочник текстов рекомендаций (одна запись на версию текста правила)
+CREATE TABLE IF NOT EXISTS recommendation_templates (
+    id BIGINT PRIMARY KEY,
+    rule_id VARCHAR(64) NOT NULL,
+    locale VARCHAR(8) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT NOT NULL,
+    content_hash CHAR(64) NOT NULL,
+    CONSTRAINT uk_recommendation_template_hash UNIQUE (content_hash)
+);
+
 -- Таблица рекомендаций
 CREATE TABLE IF NOT EXISTS recommendations (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     roadmap_id BIGINT NOT NULL,
-    title VARCHAR(255) NOT NULL,
-    description TEXT NOT NULL,
+    template_id BIGINT NOT NULL,
+    parameters VARCHAR(255),
     execution_date DATE NOT NULL,
     display_order INT NOT NULL,
-    CONSTRAINT fk_recommendation_roadmap FOREIGN KEY (roadmap_id) REFERENCES roadmaps(id) ON DELETE CASCADE
+    CONSTRAINT fk_recommendation_roadmap FOREIGN KEY (roadmap_id) REFERENCES roadmaps(id) ON DELETE CASCADE,
+    CONSTRAINT fk_recommendation_template FOREIGN KEY (template_id) REFERENCES recommendation_templates(id)
+);
+
+-- Отправленные напоминания о сроках рекомендаций
+CREATE TABLE IF NOT EXISTS reminder_deliveries (
+    recommendation_id BIGINT PRIMARY KEY,
+    sent_at TIMESTAMP NOT NULL,
+    CONSTRAINT fk_reminder_recommendation FOREIGN KEY (recommendation_id) REFERENCES recommendations(id) ON DELETE CASCADE
+);
+
+-- Счетчики сроков для сводки: число рекомендаций на дату по шаблону и гражданству заявителя
+CREATE TABLE IF NOT EXISTS deadline_counters (
+    execution_date DATE NOT NULL,
+    template_id BIGINT NOT NULL,
+    citizenship VARCHAR(100) NOT NULL,
+    recommendation_count BIGINT NOT NULL,
+    CONSTRAINT pk_deadline_counters PRIMARY KEY (execution_date, template_id, citizenship)
+);
+
+-- Путеводитель заявителя, сроки которого сейчас учтены в счетчиках (0 — ни одного).
+-- Строка блокируется на время обновления счетчиков: сохранения одного заявителя учитываются по очереди
+CREATE TABLE IF NOT EXISTS deadline_applicants (
+    applicant_id UUID PRIMARY KEY,
+    roadmap_id BIGINT NOT NULL
 );
 
 -- Индексы для оптимизации запросов
-CREATE INDEX IF NOT EXISTS idx_survey_draft ON surveys(is_draft, updated_at DESC);
-CREATE INDEX IF NOT EXISTS idx_survey_valid ON surveys(is_valid, created_at DESC);
-CREATE INDEX IF NOT EXISTS idx_roadmap_survey ON roadmaps(survey_id);
-CREATE INDEX IF NOT EXISTS idx_recommendation_roadmap ON recommendations(roadmap_id, display_order);
\ No newline at end of file
+-- "последние" анкеты и путеводители ищутся в пределах заявителя: каждый запрос — точечный поиск по индексу
+CREATE INDEX IF NOT EXISTS idx_survey_applicant_draft ON surveys(applicant_id, is_draft, updated_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_survey_applicant_valid ON surveys(applicant_id, is_valid, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_roadmap_applicant ON roadmaps(applicant_id, id DESC);
+CREATE INDEX IF NOT EXISTS idx_recommendation_roadmap ON recommendations(roadmap_id, display_order);
+CREATE INDEX IF NOT EXISTS idx_recommendation_execution ON recommendations(execution_date, id);
\ No newline at end of file
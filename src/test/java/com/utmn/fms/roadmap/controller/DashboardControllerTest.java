@@ -0,0 +1,86 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.utmn.fms.roadmap.config.AdminTokenInterceptor;
+import com.utmn.fms.roadmap.dto.DeadlineGroupDTO;
+import com.utmn.fms.roadmap.dto.DeadlineSummaryDTO;
+import com.utmn.fms.roadmap.service.DeadlineDashboardService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = DashboardController.class, properties = "roadmap.admin.token=" + DashboardControllerTest.TOKEN)
+class DashboardControllerTest {
+
+    static final String TOKEN = "test-admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private DeadlineDashboardService dashboardService;
+
+    @Test
+    @DisplayName("GET /api/admin/dashboard/deadlines — сводка по видам рекомендаций и гражданству")
+    void getDeadlineSummary_success() throws Exception {
+        LocalDate today = LocalDate.now();
+        Mockito.when(dashboardService.summarize(7))
+                .thenReturn(DeadlineSummaryDTO.builder()
+                        .from(today)
+                        .to(today.plusDays(7))
+                        .total(3)
+                        .groups(List.of(DeadlineGroupDTO.builder()
+                                .ruleId("MIGRATION_REGISTRATION")
+                                .title("Миграционный учет")
+                                .citizenship("Тестландия")
+                                .count(3)
+                                .build()))
+                        .build());
+
+        mockMvc.perform(get("/api/admin/dashboard/deadlines").param("days", "7")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.groups", hasSize(1)))
+                .andExpect(jsonPath("$.data.groups[0].ruleId").value("MIGRATION_REGISTRATION"));
+    }
+
+    @Test
+    @DisplayName("GET /api/admin/dashboard/deadlines/items — некорректный курсор, 400")
+    void getDueRecommendations_invalidCursor_shouldReturn400() throws Exception {
+        Mockito.when(dashboardService.findDue(anyInt(), any(), any(), any(), anyInt()))
+                .thenThrow(new IllegalArgumentException("Invalid due cursor"));
+
+        mockMvc.perform(get("/api/admin/dashboard/deadlines/items").param("cursor", "broken")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Некорректный курсор списка"));
+    }
+
+    @Test
+    @DisplayName("GET /api/admin/dashboard/deadlines/items — без служебного токена 401, сервис не вызывается")
+    void getDueRecommendations_withoutToken_shouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/admin/dashboard/deadlines/items"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Требуется служебный токен"));
+
+        mockMvc.perform(get("/api/admin/dashboard/deadlines/items").header(AdminTokenInterceptor.HEADER, "wrong"))
+                .andExpect(status().isUnauthorized());
+        Mockito.verifyNoInteractions(dashboardService);
+    }
+}
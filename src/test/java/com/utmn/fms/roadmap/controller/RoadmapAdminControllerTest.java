@@ -0,0 +1,156 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.config.AdminTokenInterceptor;
+import com.utmn.fms.roadmap.dto.RoadmapBatchChunkDTO;
+import com.utmn.fms.roadmap.dto.RoadmapBatchReportDTO;
+import com.utmn.fms.roadmap.dto.RoadmapBatchRequestDTO;
+import com.utmn.fms.roadmap.service.ExportCache;
+import com.utmn.fms.roadmap.service.RoadmapArchiveService;
+import com.utmn.fms.roadmap.service.RoadmapBatchService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = RoadmapAdminController.class, properties = "roadmap.admin.token=" + RoadmapAdminControllerTest.TOKEN)
+class RoadmapAdminControllerTest {
+
+    static final String TOKEN = "test-admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private RoadmapBatchService roadmapBatchService;
+
+    @MockitoBean
+    private RoadmapArchiveService roadmapArchiveService;
+
+    @MockitoBean
+    private ExportCache exportCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("GET /api/admin/roadmap/export/all — все путеводители выгружаются в NDJSON")
+    void exportAllRoadmaps_ndjson() throws Exception {
+        byte[] bytes = "{\"id\":1}\n{\"id\":2}\n".getBytes(StandardCharsets.UTF_8);
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(0, OutputStream.class).write(bytes);
+            return 2L;
+        }).when(roadmapArchiveService).writeNdjson(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/admin/roadmap/export/all").param("format", "ndjson")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("filename=roadmaps.ndjson")))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes(bytes));
+    }
+
+    @Test
+    @DisplayName("GET /api/admin/roadmap/export/all — неизвестный формат, 400")
+    void exportAllRoadmaps_unknownFormat_shouldReturn400() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/admin/roadmap/export/all").param("format", "xml")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Неизвестный формат выгрузки: xml"));
+        Mockito.verifyNoInteractions(roadmapArchiveService);
+    }
+
+    @Test
+    @DisplayName("GET /api/admin/roadmap/export/all — без служебного токена 401, выгрузка не начинается")
+    void exportAllRoadmaps_withoutToken_shouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/admin/roadmap/export/all"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Требуется служебный токен"));
+        Mockito.verifyNoInteractions(roadmapArchiveService);
+    }
+
+    @Test
+    @DisplayName("Служебный путь с ;-параметром или закодированными символами без токена — 401")
+    void exportAllRoadmaps_obfuscatedPathWithoutToken_shouldReturn401() throws Exception {
+        for (String path : List.of("/api/admin;x/roadmap/export/all", "/api/%61dmin/roadmap/export/all",
+                "/api/admin/roadmap;x/export/cache")) {
+            mockMvc.perform(get(URI.create(path)))
+                    .andExpect(status().isUnauthorized());
+        }
+        Mockito.verifyNoInteractions(roadmapArchiveService, exportCache);
+
+        // тот же путь с токеном доходит до контроллера — проверка видит его так же, как диспетчер
+        mockMvc.perform(get(URI.create("/api/%61dmin;x/roadmap/export/cache")).header(AdminTokenInterceptor.HEADER, TOKEN))
+                .andExpect(status().isOk());
+        Mockito.verify(exportCache).stats();
+    }
+
+    @Test
+    @DisplayName("POST /api/admin/roadmap/generate/batch — успешная обработка, возвращается отчет по порциям")
+    void requestRoadmapBatch_success() throws Exception {
+        RoadmapBatchReportDTO report = RoadmapBatchReportDTO.builder()
+                .requested(3)
+                .generated(2)
+                .failed(1)
+                .chunks(List.of(RoadmapBatchChunkDTO.builder()
+                        .index(1)
+                        .requested(3)
+                        .generated(2)
+                        .missingSurveyIds(List.of(3L))
+                        .build()))
+                .build();
+
+        Mockito.when(roadmapBatchService.generate(anyList()))
+                .thenReturn(report);
+
+        mockMvc.perform(post("/api/admin/roadmap/generate/batch")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RoadmapBatchRequestDTO(List.of(1L, 2L, 3L)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.generated").value(2))
+                .andExpect(jsonPath("$.data.chunks", hasSize(1)))
+                .andExpect(jsonPath("$.data.chunks[0].missingSurveyIds[0]").value(3));
+    }
+
+    @Test
+    @DisplayName("POST /api/admin/roadmap/generate/batch — пустой список анкет, 400 с ошибками валидации")
+    void requestRoadmapBatch_emptyRequest_shouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/admin/roadmap/generate/batch")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RoadmapBatchRequestDTO(List.of()))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.errors.surveyIds", notNullValue()));
+    }
+}
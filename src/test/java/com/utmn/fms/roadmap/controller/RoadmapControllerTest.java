@@ -1,11 +1,21 @@
 package com.utmn.fms.roadmap.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.dto.HistoryPageDTO;
 import com.utmn.fms.roadmap.dto.RecommendationDTO;
 import com.utmn.fms.roadmap.dto.RoadmapDTO;
-import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobStatus;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationRequestDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSummaryDTO;
+import com.utmn.fms.roadmap.service.ExportCache;
 import com.utmn.fms.roadmap.service.ExportService;
+import com.utmn.fms.roadmap.service.ResourceVersion;
+import com.utmn.fms.roadmap.service.RoadmapJobService;
 import com.utmn.fms.roadmap.service.RoadmapService;
-import com.utmn.fms.roadmap.service.SurveyService;
+import com.utmn.fms.roadmap.service.RoadmapSimulationService;
+import com.utmn.fms.roadmap.service.SimulationLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -14,14 +24,23 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.OutputStream;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RoadmapController.class)
@@ -34,27 +53,31 @@ class RoadmapControllerTest {
     private RoadmapService roadmapService;
 
     @MockitoBean
-    private SurveyService surveyService;
+    private ExportService exportService;
 
     @MockitoBean
-    private ExportService exportService;
+    private RoadmapJobService roadmapJobService;
+
+    @MockitoBean
+    private ExportCache exportCache;
+
+    @MockitoBean
+    private RoadmapSimulationService roadmapSimulationService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static final String RULES_CHECKSUM = "0123456789abcdef".repeat(4);
+
+    @BeforeEach
+    void noGeneratedRoadmap() {
+        Mockito.when(roadmapService.generationState(any()))
+                .thenReturn(new RoadmapService.GenerationState(null, null, RULES_CHECKSUM));
+    }
 
     @Test
     @DisplayName("GET /api/roadmap/generate — валидная анкета найдена, путеводитель сформирован")
     void requestRoadmap_success() throws Exception {
-        SurveyDTO surveyDTO = SurveyDTO.builder()
-                .id(1L)
-                .fullName("Иванов Иван Иванович")
-                .citizenship("Тестландия")
-                .entryDate(LocalDate.now())
-                .purposeOfStay("работа")
-                .durationOfStay(90)
-                .hasFingerprints(false)
-                .hasMedicalExam(false)
-                .isValid(true)
-                .isDraft(false)
-                .build();
-
         RoadmapDTO roadmapDTO = RoadmapDTO.builder()
                 .id(5L)
                 .createdDate(LocalDate.now())
@@ -69,14 +92,14 @@ class RoadmapControllerTest {
                 ))
                 .build();
 
-        Mockito.when(surveyService.findLastValidSurvey())
-                .thenReturn(Optional.of(surveyDTO));
-
-        Mockito.when(roadmapService.buildRoadmap(surveyDTO))
-                .thenReturn(roadmapDTO);
+        Mockito.when(roadmapService.buildCurrentRoadmap(any()))
+                .thenReturn(Optional.of(roadmapDTO));
+        Mockito.when(roadmapService.generatedVersion(any(), eq(roadmapDTO)))
+                .thenReturn(Optional.of(ResourceVersion.of("generate-1-5")));
 
         mockMvc.perform(get("/api/roadmap/generate"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"generate-1-5\""))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Путеводитель успешно сформирован"))
                 .andExpect(jsonPath("$.data.id").value(5L))
@@ -84,10 +107,21 @@ class RoadmapControllerTest {
                 .andExpect(jsonPath("$.data.recommendations[0].title").value("Миграционный учет"));
     }
 
+    @Test
+    @DisplayName("GET /api/roadmap/generate — анкета и правила не изменились, 304 без формирования")
+    void requestRoadmap_notModified_shouldReturn304() throws Exception {
+        RoadmapService.GenerationState state = new RoadmapService.GenerationState(1L, 5L, RULES_CHECKSUM);
+        Mockito.when(roadmapService.generationState(any())).thenReturn(state);
+
+        mockMvc.perform(get("/api/roadmap/generate").header("If-None-Match", state.version().get().etag()))
+                .andExpect(status().isNotModified());
+        Mockito.verify(roadmapService, Mockito.never()).buildCurrentRoadmap(any());
+    }
+
     @Test
     @DisplayName("GET /api/roadmap/generate — валидная анкета не найдена, 400 с сообщением")
     void requestRoadmap_noValidSurvey_shouldReturn400() throws Exception {
-        Mockito.when(surveyService.findLastValidSurvey())
+        Mockito.when(roadmapService.buildCurrentRoadmap(any()))
                 .thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/roadmap/generate"))
@@ -99,14 +133,7 @@ class RoadmapControllerTest {
     @Test
     @DisplayName("GET /api/roadmap/generate — ошибка сервиса, 500")
     void requestRoadmap_serviceError_shouldReturn500() throws Exception {
-        SurveyDTO surveyDTO = SurveyDTO.builder()
-                .id(1L)
-                .build();
-
-        Mockito.when(surveyService.findLastValidSurvey())
-                .thenReturn(Optional.of(surveyDTO));
-
-        Mockito.when(roadmapService.buildRoadmap(surveyDTO))
+        Mockito.when(roadmapService.buildCurrentRoadmap(any()))
                 .thenThrow(new RuntimeException("Generation error"));
 
         mockMvc.perform(get("/api/roadmap/generate"))
@@ -124,7 +151,7 @@ class RoadmapControllerTest {
                 .recommendations(List.of())
                 .build();
 
-        Mockito.when(roadmapService.findCurrentRoadmap())
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
                 .thenReturn(Optional.of(roadmapDTO));
 
         String html = "<html><body>test</body></html>";
@@ -140,10 +167,226 @@ class RoadmapControllerTest {
                 .andExpect(content().bytes(bytes));
     }
 
+    @Test
+    @DisplayName("POST /api/roadmap/generate/async — задание принято, 202 с id задания")
+    void requestRoadmapAsync_shouldReturnJobId() throws Exception {
+        Mockito.when(roadmapJobService.submit(any()))
+                .thenReturn(Optional.of(RoadmapJobDTO.builder()
+                        .jobId("job-1")
+                        .status(RoadmapJobStatus.PENDING)
+                        .build()));
+
+        mockMvc.perform(post("/api/roadmap/generate/async"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/roadmap/jobs/job-1"))
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.jobId").value("job-1"))
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+    }
+
+    @Test
+    @DisplayName("POST /api/roadmap/generate/async — очередь заданий заполнена, 503")
+    void requestRoadmapAsync_queueFull_shouldReturn503() throws Exception {
+        Mockito.when(roadmapJobService.submit(any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/roadmap/generate/async"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Слишком много заданий в очереди, повторите попытку позже"));
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/jobs/{id} — ожидание завершения, готовый путеводитель")
+    void getRoadmapJob_done_shouldReturnRoadmap() throws Exception {
+        RoadmapJobDTO job = RoadmapJobDTO.builder()
+                .jobId("job-1")
+                .status(RoadmapJobStatus.DONE)
+                .roadmap(RoadmapDTO.builder().id(5L).recommendations(List.of()).build())
+                .build();
+
+        Mockito.when(roadmapJobService.await(any(), eq("job-1"), eq(Duration.ofSeconds(30))))
+                .thenReturn(Optional.of(CompletableFuture.completedFuture(job)));
+
+        MvcResult result = mockMvc.perform(get("/api/roadmap/jobs/job-1").param("waitSeconds", "120"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("DONE"))
+                .andExpect(jsonPath("$.data.roadmap.id").value(5L));
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/jobs/{id} — задание не найдено, 404")
+    void getRoadmapJob_unknown_shouldReturn404() throws Exception {
+        Mockito.when(roadmapJobService.await(any(), eq("missing"), eq(Duration.ZERO)))
+                .thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/api/roadmap/jobs/missing"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Задание не найдено"));
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/export — ответ содержит сильный ETag и кэшируется")
+    void exportRoadmap_success_shouldSetEtagAndCache() throws Exception {
+        RoadmapDTO roadmapDTO = RoadmapDTO.builder()
+                .id(5L)
+                .createdDate(LocalDate.now())
+                .recommendations(List.of())
+                .build();
+        byte[] bytes = "<html><body>test</body></html>".getBytes(StandardCharsets.UTF_8);
+
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
+                .thenReturn(Optional.of(roadmapDTO));
+        Mockito.when(exportService.exportToHtml(roadmapDTO))
+                .thenReturn(bytes);
+
+        mockMvc.perform(get("/api/roadmap/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ExportService.etag(5L)))
+                .andExpect(content().bytes(bytes));
+
+        Mockito.verify(exportCache).put(5L, bytes);
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/export — совпадающий If-None-Match, 304 без загрузки и рендеринга")
+    void exportRoadmap_notModified_shouldReturn304() throws Exception {
+        Mockito.when(roadmapService.findCurrentRoadmapId(any()))
+                .thenReturn(Optional.of(5L));
+
+        mockMvc.perform(get("/api/roadmap/export").header("If-None-Match", ExportService.etag(5L)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+
+        Mockito.verify(roadmapService, Mockito.never()).findCurrentRoadmap(any());
+        Mockito.verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/export — экспорт найден в кэше, повторный рендеринг не выполняется")
+    void exportRoadmap_cached_shouldServeCachedBytes() throws Exception {
+        byte[] bytes = "<html><body>cached</body></html>".getBytes(StandardCharsets.UTF_8);
+
+        Mockito.when(roadmapService.findCurrentRoadmapId(any()))
+                .thenReturn(Optional.of(5L));
+        Mockito.when(exportCache.get(5L))
+                .thenReturn(Optional.of(bytes));
+
+        mockMvc.perform(get("/api/roadmap/export"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ExportService.etag(5L)))
+                .andExpect(content().bytes(bytes));
+
+        Mockito.verify(roadmapService, Mockito.never()).findCurrentRoadmap(any());
+        Mockito.verifyNoInteractions(exportService);
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/export?stream=true — HTML пишется прямо в поток ответа")
+    void exportRoadmap_stream_success() throws Exception {
+        RoadmapDTO roadmapDTO = RoadmapDTO.builder()
+                .id(5L)
+                .createdDate(LocalDate.now())
+                .recommendations(List.of())
+                .build();
+
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
+                .thenReturn(Optional.of(roadmapDTO));
+
+        byte[] bytes = "<html><body>stream</body></html>".getBytes(StandardCharsets.UTF_8);
+        Mockito.doAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write(bytes);
+            return null;
+        }).when(exportService).writeHtml(eq(roadmapDTO), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/roadmap/export").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("attachment; filename=roadmap.html")))
+                .andExpect(content().contentType(MediaType.TEXT_HTML))
+                .andExpect(content().bytes(bytes));
+    }
+
+    @Test
+    @DisplayName("GET /api/roadmap/export?stream=true — путеводитель не найден, 400")
+    void exportRoadmap_stream_noRoadmap_shouldReturn400() throws Exception {
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
+                .thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(get("/api/roadmap/export").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Путеводитель не найден. Сначала создайте путеводитель."));
+    }
+
+    @Test
+    @DisplayName("POST /api/roadmap/simulate — пустое измерение сетки, 400 с ошибками валидации")
+    void simulateRoadmaps_emptyDimension_shouldReturn400() throws Exception {
+        RoadmapSimulationRequestDTO request = RoadmapSimulationRequestDTO.builder()
+                .entryDates(List.of(LocalDate.of(2025, 3, 1)))
+                .durationsOfStay(List.of(90, 120))
+                .purposesOfStay(List.of("работа"))
+                .citizenships(List.of())
+                .hasFingerprints(List.of(false))
+                .hasMedicalExam(List.of(false))
+                .build();
+
+        mockMvc.perform(post("/api/roadmap/simulate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Ошибки валидации"))
+                .andExpect(jsonPath("$.errors.citizenships").value("Укажите хотя бы одно гражданство"));
+        Mockito.verifyNoInteractions(roadmapSimulationService);
+    }
+
+    @Test
+    @DisplayName("POST /api/roadmap/simulate — сочетаний больше лимита 400, прочие ошибки 500")
+    void simulateRoadmaps_errors() throws Exception {
+        RoadmapSimulationRequestDTO request = RoadmapSimulationRequestDTO.builder()
+                .entryDates(List.of(LocalDate.of(2025, 3, 1)))
+                .durationsOfStay(List.of(90, 120))
+                .purposesOfStay(List.of("работа"))
+                .citizenships(List.of("Тестландия"))
+                .hasFingerprints(List.of(false))
+                .hasMedicalExam(List.of(false))
+                .build();
+        Mockito.when(roadmapSimulationService.simulate(any()))
+                .thenThrow(new SimulationLimitExceededException(2, 1))
+                .thenThrow(new IllegalArgumentException("Unknown rule"));
+
+        mockMvc.perform(post("/api/roadmap/simulate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Слишком много сочетаний входных данных: 2 (допустимо не более 1)"));
+
+        mockMvc.perform(post("/api/roadmap/simulate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.message").value("Ошибка при моделировании путеводителей"));
+    }
+
     @Test
     @DisplayName("GET /api/roadmap/export — путеводитель не найден, 400")
     void exportRoadmap_noRoadmap_shouldReturn400() throws Exception {
-        Mockito.when(roadmapService.findCurrentRoadmap())
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
                 .thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/roadmap/export"))
@@ -161,7 +404,7 @@ class RoadmapControllerTest {
                 .recommendations(List.of())
                 .build();
 
-        Mockito.when(roadmapService.findCurrentRoadmap())
+        Mockito.when(roadmapService.findCurrentRoadmap(any()))
                 .thenReturn(Optional.of(roadmapDTO));
 
         Mockito.when(exportService.exportToHtml(roadmapDTO))
@@ -172,4 +415,18 @@ class RoadmapControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Ошибка при экспорте путеводителя"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("GET /api/roadmap/history — страница истории с курсором следующей страницы")
+    void getRoadmapHistory_shouldReturnPage() throws Exception {
+        HistoryPageDTO<RoadmapSummaryDTO> page = new HistoryPageDTO<>(List.of(
+                new RoadmapSummaryDTO(5L, 6L, LocalDate.of(2025, 3, 2), 6)), "NQ");
+        Mockito.when(roadmapService.findHistory(any(), eq("Ng"), eq(1))).thenReturn(page);
+
+        mockMvc.perform(get("/api/roadmap/history").param("cursor", "Ng").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[0].id").value(5))
+                .andExpect(jsonPath("$.data.items[0].recommendationCount").value(6))
+                .andExpect(jsonPath("$.data.nextCursor").value("NQ"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.utmn.fms.roadmap.controller;
+
+import com.utmn.fms.roadmap.config.AdminTokenInterceptor;
+import com.utmn.fms.roadmap.dto.SurveyImportErrorDTO;
+import com.utmn.fms.roadmap.dto.SurveyImportReportDTO;
+import com.utmn.fms.roadmap.service.SurveyImportFormat;
+import com.utmn.fms.roadmap.service.SurveyImportService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = SurveyAdminController.class, properties = "roadmap.admin.token=" + SurveyAdminControllerTest.TOKEN)
+class SurveyAdminControllerTest {
+
+    static final String TOKEN = "test-admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SurveyImportService surveyImportService;
+
+    @Test
+    @DisplayName("POST /api/admin/survey/import — CSV передается в импорт, возвращается отчет по строкам")
+    void importSurveys_csv_shouldReturnReport() throws Exception {
+        SurveyImportReportDTO report = SurveyImportReportDTO.builder()
+                .processed(2)
+                .imported(1)
+                .rejected(1)
+                .errors(List.of(new SurveyImportErrorDTO(3, Map.of("durationOfStay", "Некорректное значение"))))
+                .build();
+        Mockito.when(surveyImportService.importSurveys(any(), eq(SurveyImportFormat.CSV))).thenReturn(report);
+
+        mockMvc.perform(post("/api/admin/survey/import")
+                        .header(AdminTokenInterceptor.HEADER, TOKEN)
+                        .contentType("text/csv")
+                        .content("fullName,citizenship\nИван,Тестландия\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.imported").value(1))
+                .andExpect(jsonPath("$.data.errors[0].line").value(3))
+                .andExpect(jsonPath("$.data.errors[0].errors.durationOfStay").value("Некорректное значение"));
+    }
+
+    @Test
+    @DisplayName("POST /api/admin/survey/import — без служебного токена 401, импорт не выполняется")
+    void importSurveys_withoutToken_shouldReturn401() throws Exception {
+        mockMvc.perform(post("/api/admin/survey/import")
+                        .contentType("text/csv")
+                        .content("fullName,citizenship\nИван,Тестландия\n"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Требуется служебный токен"));
+        Mockito.verifyNoInteractions(surveyImportService);
+    }
+
+    @Test
+    @DisplayName("POST /api/admin/survey/import — ;-параметр или закодированный путь без токена, 401")
+    void importSurveys_obfuscatedPathWithoutToken_shouldReturn401() throws Exception {
+        for (String path : List.of("/api/admin;x/survey/import", "/api/%61dmin/survey/import")) {
+            mockMvc.perform(post(URI.create(path))
+                            .contentType("text/csv")
+                            .content("fullName,citizenship\nИван,Тестландия\n"))
+                    .andExpect(status().isUnauthorized());
+        }
+        Mockito.verifyNoInteractions(surveyImportService);
+    }
+}
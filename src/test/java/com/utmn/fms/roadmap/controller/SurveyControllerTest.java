@@ -1,19 +1,25 @@
 package com.utmn.fms.roadmap.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.config.ApplicantFilter;
 import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.service.ResourceVersion;
 import com.utmn.fms.roadmap.service.SurveyService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.*;
@@ -49,11 +55,15 @@ class SurveyControllerTest {
                 .version(1)
                 .build();
 
-        Mockito.when(surveyService.findLastDraft())
+        Mockito.when(surveyService.lastDraftVersion(any()))
+                .thenReturn(new ResourceVersion("\"draft-1-1\"", 1000L));
+        Mockito.when(surveyService.findLastDraft(any()))
                 .thenReturn(Optional.of(draft));
 
         mockMvc.perform(get("/api/survey/open"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"draft-1-1\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.message").value("Найден черновик анкеты"))
                 .andExpect(jsonPath("$.data.id").value(1L))
@@ -64,7 +74,9 @@ class SurveyControllerTest {
     @Test
     @DisplayName("GET /api/survey/open — черновик не найден, новая анкета")
     void openForm_noDraft_shouldReturnNewSurvey() throws Exception {
-        Mockito.when(surveyService.findLastDraft())
+        Mockito.when(surveyService.lastDraftVersion(any()))
+                .thenReturn(ResourceVersion.of("draft-none"));
+        Mockito.when(surveyService.findLastDraft(any()))
                 .thenReturn(Optional.empty());
 
         mockMvc.perform(get("/api/survey/open"))
@@ -74,6 +86,18 @@ class SurveyControllerTest {
                 .andExpect(jsonPath("$.data").doesNotExist());
     }
 
+    @Test
+    @DisplayName("GET /api/survey/open — черновик не изменился, 304 без чтения анкеты")
+    void openForm_notModified_shouldReturn304() throws Exception {
+        Mockito.when(surveyService.lastDraftVersion(any()))
+                .thenReturn(new ResourceVersion("\"draft-1-1\"", 1000L));
+
+        mockMvc.perform(get("/api/survey/open").header("If-None-Match", "\"draft-1-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        Mockito.verify(surveyService, Mockito.never()).findLastDraft(any());
+    }
+
     @Test
     @DisplayName("POST /api/survey/submit — валидный запрос, черновик сохраняется")
     void submitAnswers_validRequest_shouldSaveDraft() throws Exception {
@@ -101,8 +125,8 @@ class SurveyControllerTest {
                 .version(1)
                 .build();
 
-        Mockito.when(surveyService.saveDraft(any(SurveyDTO.class)))
-                .thenReturn(savedDto);
+        Mockito.when(surveyService.saveDraft(any(), any(SurveyDTO.class)))
+                .thenReturn(Optional.of(savedDto));
 
         mockMvc.perform(post("/api/survey/submit")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -149,7 +173,7 @@ class SurveyControllerTest {
                 .hasMedicalExam(true)
                 .build();
 
-        Mockito.when(surveyService.saveDraft(any(SurveyDTO.class)))
+        Mockito.when(surveyService.saveDraft(any(), any(SurveyDTO.class)))
                 .thenThrow(new RuntimeException("DB error"));
 
         mockMvc.perform(post("/api/survey/submit")
@@ -160,6 +184,34 @@ class SurveyControllerTest {
                 .andExpect(jsonPath("$.message").value("Ошибка при сохранении анкеты"));
     }
 
+    @Test
+    @DisplayName("POST /api/survey/submit — черновик другого заявителя, 404")
+    void submitAnswers_foreignDraft_shouldReturn404() throws Exception {
+        UUID applicantId = UUID.randomUUID();
+        SurveyDTO requestDto = SurveyDTO.builder()
+                .id(7L)
+                .fullName("Иванов Иван Иванович")
+                .citizenship("Тестландия")
+                .entryDate(LocalDate.now())
+                .purposeOfStay("работа")
+                .durationOfStay(90)
+                .hasFingerprints(true)
+                .hasMedicalExam(true)
+                .build();
+
+        Mockito.when(surveyService.saveDraft(eq(applicantId), any(SurveyDTO.class)))
+                .thenReturn(Optional.empty());
+
+        mockMvc.perform(post("/api/survey/submit")
+                        .header(ApplicantFilter.HEADER, applicantId.toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Set-Cookie"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Черновик анкеты не найден"));
+    }
+
     @Test
     @DisplayName("POST /api/survey/confirm/{id} — успешное создание новой версии")
     void confirmSave_success() throws Exception {
@@ -178,7 +230,7 @@ class SurveyControllerTest {
                 .version(2)
                 .build();
 
-        Mockito.when(surveyService.createNewVersion(id))
+        Mockito.when(surveyService.createNewVersion(any(), eq(id)))
                 .thenReturn(newVersion);
 
         mockMvc.perform(post("/api/survey/confirm/{id}", id))
@@ -193,7 +245,7 @@ class SurveyControllerTest {
     @DisplayName("POST /api/survey/confirm/{id} — бизнес‑ошибка (RuntimeException), 400 с текстом из исключения")
     void confirmSave_runtimeError_shouldReturn400() throws Exception {
         Long id = 999L;
-        Mockito.when(surveyService.createNewVersion(id))
+        Mockito.when(surveyService.createNewVersion(any(), eq(id)))
                 .thenThrow(new RuntimeException("Survey not found"));
 
         mockMvc.perform(post("/api/survey/confirm/{id}", id))
@@ -202,11 +254,23 @@ class SurveyControllerTest {
                 .andExpect(jsonPath("$.message").value("Survey not found"));
     }
 
+    @Test
+    @DisplayName("POST /api/survey/confirm/{id} — параллельное подтверждение не удалось повторить, 409")
+    void confirmSave_concurrentVersion_shouldReturn409() throws Exception {
+        Mockito.when(surveyService.createNewVersion(any(), eq(1L)))
+                .thenThrow(new OptimisticLockingFailureException("Survey was modified concurrently"));
+
+        mockMvc.perform(post("/api/survey/confirm/{id}", 1L))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("Анкета изменена параллельно, повторите попытку"));
+    }
+
     @Test
     @DisplayName("POST /api/survey/confirm/{id} — неожиданная ошибка, 400")
     void confirmSave_unexpectedError_shouldReturn400() throws Exception {
         Long id = 1L;
-        Mockito.when(surveyService.createNewVersion(id))
+        Mockito.when(surveyService.createNewVersion(any(), eq(id)))
                 .thenThrow(new IllegalStateException("Unexpected"));
 
         mockMvc.perform(post("/api/survey/confirm/{id}", id))
@@ -214,4 +278,52 @@ class SurveyControllerTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Unexpected"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("GET /api/survey/history — некорректный курсор, 400")
+    void getHistory_invalidCursor_shouldReturn400() throws Exception {
+        Mockito.when(surveyService.findHistory(any(), eq(false), eq("broken"), eq(20)))
+                .thenThrow(new IllegalArgumentException("Invalid history cursor: broken"));
+
+        mockMvc.perform(get("/api/survey/history").param("cursor", "broken"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Некорректный курсор истории"));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/survey/{id} — применяются только переданные поля")
+    void patchDraft_validFields_shouldUpdateDraft() throws Exception {
+        SurveyDTO patched = SurveyDTO.builder()
+                .id(1L)
+                .fullName("Иван Иванов")
+                .durationOfStay(60)
+                .hasMedicalExam(true)
+                .isDraft(true)
+                .build();
+        Mockito.when(surveyService.patchDraft(any(), eq(1L), any())).thenReturn(Optional.of(patched));
+
+        mockMvc.perform(patch("/api/survey/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"hasMedicalExam\": true}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.hasMedicalExam").value(true));
+
+        Mockito.verify(surveyService).patchDraft(any(), eq(1L),
+                argThat(patch -> patch.changes().keySet().equals(Set.of("hasMedicalExam"))));
+    }
+
+    @Test
+    @DisplayName("PATCH /api/survey/{id} — ошибки только по переданным полям, 400")
+    void patchDraft_invalidField_shouldReturnValidationErrors() throws Exception {
+        mockMvc.perform(patch("/api/survey/{id}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"durationOfStay\": -5, \"fullName\": \"Иван\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Ошибки валидации"))
+                .andExpect(jsonPath("$.errors.durationOfStay", notNullValue()))
+                .andExpect(jsonPath("$.errors.citizenship").doesNotExist());
+
+        Mockito.verify(surveyService, Mockito.never()).patchDraft(any(), any(), any());
+    }
+}
@@ -0,0 +1,182 @@
+package com.utmn.fms.roadmap.reminder;
+
+import com.utmn.fms.roadmap.entity.ReminderDelivery;
+import com.utmn.fms.roadmap.repository.PendingReminder;
+import com.utmn.fms.roadmap.repository.ReminderDeliveryRepository;
+import com.utmn.fms.roadmap.service.RecommendationTemplateService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReminderSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final ReminderDeliveryRepository repository = Mockito.mock(ReminderDeliveryRepository.class);
+    private final ReminderNotifier notifier = Mockito.mock(ReminderNotifier.class);
+
+    // содержимое БД: ожидающие рекомендации, отметки об отправке и замененные путеводители
+    private final List<PendingReminder> rows = new ArrayList<>();
+    private final Set<Long> delivered = new HashSet<>();
+    private final Set<Long> replacedRoadmaps = new HashSet<>();
+
+    @SuppressWarnings("unchecked")
+    ReminderSchedulerTest() {
+        Mockito.when(repository.findPending(ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(),
+                ArgumentMatchers.any(), ArgumentMatchers.any())).thenAnswer(invocation -> page(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                invocation.getArgument(3), invocation.getArgument(4)));
+        Mockito.when(repository.findCurrentRoadmapIds(ArgumentMatchers.anyCollection()))
+                .thenAnswer(invocation -> ((Collection<Long>) invocation.getArgument(0)).stream()
+                        .filter(id -> !replacedRoadmaps.contains(id))
+                        .toList());
+        Mockito.when(repository.saveAll(ArgumentMatchers.anyList())).thenAnswer(invocation -> {
+            List<ReminderDelivery> deliveries = invocation.getArgument(0);
+            deliveries.forEach(delivery -> delivered.add(delivery.getRecommendationId()));
+            return deliveries;
+        });
+    }
+
+    @Test
+    @DisplayName("Чтение идет порциями от курсора, повторный просмотр не планирует строки заново")
+    void scan_readsPagesFromCursor() {
+        rows.add(reminder(1L, TODAY.plusDays(1)));
+        rows.add(reminder(2L, TODAY.plusDays(1)));
+        rows.add(reminder(3L, TODAY.plusDays(2)));
+        ReminderScheduler scheduler = scheduler(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        scheduler.bindTo(registry);
+
+        scheduler.scan();
+
+        ArgumentCaptor<LocalDate> afterDate = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<Long> afterId = ArgumentCaptor.forClass(Long.class);
+        Mockito.verify(repository, Mockito.times(2)).findPending(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                afterDate.capture(), afterId.capture(), ArgumentMatchers.any());
+        // вторая порция начинается после последней прочитанной строки (срок, id)
+        assertThat(afterDate.getAllValues().get(1)).isEqualTo(TODAY.plusDays(1));
+        assertThat(afterId.getAllValues().get(1)).isEqualTo(2L);
+        assertThat(registry.get("roadmap.reminders.scheduled").gauge().value()).isEqualTo(3);
+
+        rows.add(reminder(4L, TODAY.plusDays(2)));
+        scheduler.scan();
+
+        assertThat(registry.get("roadmap.reminders.scheduled").gauge().value()).isEqualTo(4);
+        Mockito.verifyNoInteractions(notifier);
+    }
+
+    @Test
+    @DisplayName("Пропущенные напоминания в окне catch-up отправляются сразу, более старые не читаются")
+    void scan_sendsOverdueRemindersWithinCatchUp() {
+        rows.add(reminder(1L, TODAY.minusDays(3)));
+        rows.add(reminder(2L, TODAY.minusDays(10)));
+        rows.add(reminder(3L, TODAY.plusDays(1)));
+
+        scheduler(100).scan();
+
+        assertThat(sentIds()).containsExactly(1L);
+        assertThat(delivered).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("После неудачной отправки окно перечитывается с начала и напоминание отправляется повторно")
+    void scan_rescansAfterFailedSend() {
+        rows.add(reminder(1L, TODAY.minusDays(1)));
+        rows.add(reminder(2L, TODAY.plusDays(1)));
+        ReminderScheduler scheduler = scheduler(100);
+        Mockito.doThrow(new IllegalStateException("outbox unavailable")).doNothing()
+                .when(notifier).send(ArgumentMatchers.anyList());
+
+        scheduler.scan();
+        assertThat(delivered).isEmpty();
+
+        // курсор уже за строкой 2: без сброса строка 1 не была бы прочитана снова
+        scheduler.scan();
+
+        assertThat(delivered).containsExactly(1L);
+        ArgumentCaptor<LocalDate> afterDate = ArgumentCaptor.forClass(LocalDate.class);
+        Mockito.verify(repository, Mockito.times(2)).findPending(ArgumentMatchers.any(), ArgumentMatchers.any(),
+                afterDate.capture(), ArgumentMatchers.any(), ArgumentMatchers.any());
+        assertThat(afterDate.getAllValues().get(1)).isEqualTo(afterDate.getAllValues().get(0));
+    }
+
+    @Test
+    @DisplayName("После перезапуска отправленные напоминания не повторяются, неотправленные подхватываются")
+    void scan_resumesAfterRestart() {
+        rows.add(reminder(1L, TODAY.minusDays(1)));
+        scheduler(100).scan();
+        rows.add(reminder(2L, TODAY.minusDays(2)));
+        rows.add(reminder(3L, TODAY.plusDays(1)));
+
+        ReminderScheduler restarted = scheduler(100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        restarted.bindTo(registry);
+        restarted.scan();
+
+        assertThat(sentIds()).containsExactly(1L, 2L);
+        assertThat(delivered).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(registry.get("roadmap.reminders.scheduled").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Напоминания замененного путеводителя не отправляются")
+    void dispatch_skipsRemindersOfReplacedRoadmap() {
+        rows.add(new PendingReminder(1L, 10L, 7L, null, TODAY.minusDays(1)));
+        rows.add(new PendingReminder(2L, 11L, 7L, null, TODAY.minusDays(1)));
+        replacedRoadmaps.add(10L);
+
+        scheduler(100).scan();
+
+        assertThat(sentIds()).containsExactly(2L);
+        assertThat(delivered).containsExactly(2L);
+    }
+
+    private ReminderScheduler scheduler(int pageSize) {
+        return new ReminderScheduler(repository, Mockito.mock(RecommendationTemplateService.class), notifier,
+                new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+                0, "00:00", Duration.ofDays(2), Duration.ofDays(7), 100, pageSize, Duration.ofSeconds(1));
+    }
+
+    private static PendingReminder reminder(Long id, LocalDate executionDate) {
+        return new PendingReminder(id, 100L + id, 7L, null, executionDate);
+    }
+
+    private List<PendingReminder> page(LocalDate from, LocalDate to, LocalDate afterDate, Long afterId, Limit limit) {
+        return rows.stream()
+                .filter(row -> !row.executionDate().isBefore(from) && !row.executionDate().isAfter(to))
+                .filter(row -> row.executionDate().isAfter(afterDate)
+                        || (row.executionDate().isEqual(afterDate) && row.recommendationId() > afterId))
+                .filter(row -> !delivered.contains(row.recommendationId()))
+                .sorted(Comparator.comparing(PendingReminder::executionDate)
+                        .thenComparing(PendingReminder::recommendationId))
+                .limit(limit.max())
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> sentIds() {
+        ArgumentCaptor<List<ReminderMessage>> messages = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(notifier, Mockito.atLeastOnce()).send(messages.capture());
+        return messages.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(ReminderMessage::recommendationId)
+                .toList();
+    }
+}
@@ -0,0 +1,55 @@
+package com.utmn.fms.roadmap.reminder;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("Задачи срабатывают в свой тик на любом уровне, включая сроки дальше старшего уровня")
+    void advance_firesEachTaskAtItsTick() {
+        // 2 уровня по 64 тика: все, что дальше 4096 тиков, перекладывается по кругу
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 2, 1_000);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = 1_010 + random.nextInt(100_000) * 10L;
+            deadlines.add(deadline);
+            assertThat(wheel.schedule(deadline, deadline)).isTrue();
+        }
+        assertThat(wheel.schedule(1_000, 0L)).isFalse();
+
+        List<Long> fired = new ArrayList<>();
+        for (long now = 1_000; now <= 1_010 + 100_000 * 10L; now += 10) {
+            long current = now;
+            wheel.advance(now, deadline -> {
+                assertThat(deadline).isEqualTo(current);
+                fired.add(deadline);
+            });
+        }
+
+        assertThat(fired).containsExactlyInAnyOrderElementsOf(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Пропущенные тики догоняются за один вызов")
+    void advance_catchesUpAfterPause() {
+        TimingWheel<String> wheel = new TimingWheel<>(1_000, 4, 0);
+        wheel.schedule(5_000, "soon");
+        wheel.schedule(90_000_000, "later");
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(60_000, fired::add);
+        assertThat(fired).containsExactly("soon");
+
+        wheel.advance(100_000_000, fired::add);
+        assertThat(fired).containsExactly("soon", "later");
+    }
+}
@@ -0,0 +1,89 @@
+package com.utmn.fms.roadmap.repository;
+
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.RecommendationTemplate;
+import com.utmn.fms.roadmap.entity.ReminderDelivery;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.entity.Survey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ReminderDeliveryRepositoryTest {
+
+    private static final LocalDate DEADLINE = LocalDate.of(2026, 3, 10);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReminderDeliveryRepository deliveryRepository;
+
+    @Test
+    @DisplayName("Ожидающие напоминания — только по действующему путеводителю заявителя и без отправленных")
+    void findPending_skipsReplacedRoadmapsAndDelivered() {
+        Long templateId = entityManager.persist(template()).getId();
+        UUID applicant = UUID.randomUUID();
+        Roadmap replaced = roadmap(applicant, templateId, DEADLINE);
+        Roadmap current = roadmap(applicant, templateId, DEADLINE, DEADLINE.plusDays(1));
+        Roadmap other = roadmap(UUID.randomUUID(), templateId, DEADLINE);
+        entityManager.persist(new ReminderDelivery(current.getRecommendations().get(1).getId(), LocalDateTime.now()));
+        entityManager.flush();
+
+        List<PendingReminder> pending = deliveryRepository.findPending(DEADLINE.minusDays(1), DEADLINE.plusDays(5),
+                DEADLINE.minusDays(2), 0L, Limit.of(10));
+
+        assertThat(pending).extracting(PendingReminder::roadmapId)
+                .containsExactlyInAnyOrder(current.getId(), other.getId());
+        assertThat(deliveryRepository.findPendingByRoadmapIds(List.of(replaced.getId(), current.getId()),
+                DEADLINE.minusDays(1), DEADLINE.plusDays(5)))
+                .extracting(PendingReminder::recommendationId)
+                .containsExactly(current.getRecommendations().get(0).getId());
+        assertThat(deliveryRepository.findCurrentRoadmapIds(List.of(replaced.getId(), current.getId(), other.getId())))
+                .containsExactlyInAnyOrder(current.getId(), other.getId());
+    }
+
+    private Roadmap roadmap(UUID applicantId, Long templateId, LocalDate... deadlines) {
+        Survey survey = entityManager.persist(Survey.builder()
+                .fullName("Иванов Иван")
+                .citizenship("Тестландия")
+                .entryDate(DEADLINE.minusDays(30))
+                .purposeOfStay("работа")
+                .durationOfStay(90)
+                .hasFingerprints(false)
+                .hasMedicalExam(false)
+                .applicantId(applicantId)
+                .build());
+        Roadmap roadmap = Roadmap.builder().survey(survey).applicantId(applicantId).build();
+        for (int i = 0; i < deadlines.length; i++) {
+            roadmap.getRecommendations().add(Recommendation.builder()
+                    .roadmap(roadmap)
+                    .templateId(templateId)
+                    .executionDate(deadlines[i])
+                    .displayOrder(i + 1)
+                    .build());
+        }
+        return entityManager.persist(roadmap);
+    }
+
+    private static RecommendationTemplate template() {
+        return RecommendationTemplate.builder()
+                .ruleId("EXIT")
+                .locale("ru")
+                .title("Выезд")
+                .description("Выезд до {exitDate}")
+                .contentHash(UUID.randomUUID().toString())
+                .build();
+    }
+}
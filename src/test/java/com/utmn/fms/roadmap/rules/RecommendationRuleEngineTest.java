@@ -0,0 +1,152 @@
+package com.utmn.fms.roadmap.rules;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.event.RuleSetReloadedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendationRuleEngineTest {
+
+    private static final LocalDate ENTRY_DATE = LocalDate.of(2025, 3, 1);
+
+    private final RuleSet ruleSet = RecommendationRuleEngine.load(new ObjectMapper(),
+            new ClassPathResource("rules/recommendation-rules.json"),
+            new ClassPathResource("rules/production-calendar.json"));
+
+    @Test
+    @DisplayName("Все условия выполнены — шесть рекомендаций, сроки перенесены на рабочие дни")
+    void evaluate_allRulesMatch() {
+        List<RuleResult> results = ruleSet.evaluate(
+                new RuleInput(ENTRY_DATE, " Работа ", "Тестландия", 120, false, false));
+
+        assertThat(results).extracting(RuleResult::ruleId).containsExactly(
+                "MIGRATION_REGISTRATION", "FINGERPRINTS", "MEDICAL_EXAM", "WORK_PATENT", "STAY_EXTENSION", "EXIT");
+        assertThat(results).extracting(RuleResult::executionDate).containsExactly(
+                // учет — 7 рабочих дней; сроки с выходных переносятся на понедельник, выезд — на пятницу
+                LocalDate.of(2025, 3, 11), LocalDate.of(2025, 3, 17), LocalDate.of(2025, 3, 24),
+                LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30), LocalDate.of(2025, 6, 20));
+        assertThat(results).extracting(RuleResult::displayOrder).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(results.get(5).description()).contains("до " + ENTRY_DATE.plusDays(120) + " или");
+    }
+
+    @Test
+    @DisplayName("Условия не выполнены — только учет и выезд")
+    void evaluate_onlyMandatoryRules() {
+        List<RuleResult> results = ruleSet.evaluate(
+                new RuleInput(ENTRY_DATE, "учеба", "Тестландия", 90, true, true));
+
+        assertThat(results).extracting(RuleResult::ruleId).containsExactly("MIGRATION_REGISTRATION", "EXIT");
+        assertThat(results).extracting(RuleResult::displayOrder).containsExactly(1, 2);
+    }
+
+    @Test
+    @DisplayName("Напоминание о выезде в новогодние праздники переносится назад, а не за дату выезда")
+    void evaluate_exitReminderDuringHolidays_movesBackward() {
+        // выезд 8 января 2026: срок 1 января, праздники до 9 января включительно
+        List<RuleResult> results = ruleSet.evaluate(
+                new RuleInput(LocalDate.of(2025, 12, 9), "учеба", "Тестландия", 30, true, true));
+
+        assertThat(results.get(1).ruleId()).isEqualTo("EXIT");
+        assertThat(results.get(1).executionDate()).isEqualTo(LocalDate.of(2025, 12, 30));
+        assertThat(ruleSet.getCalendar().previousWorkingDay(LocalDate.of(2026, 1, 12)))
+                .isEqualTo(LocalDate.of(2026, 1, 12));
+    }
+
+    @Test
+    @DisplayName("Рабочие дни считаются с учетом праздников и переносов")
+    void calendar_skipsHolidaysAndTransfers() {
+        WorkingCalendar calendar = ruleSet.getCalendar();
+
+        assertThat(calendar.plusWorkingDays(LocalDate.of(2025, 4, 28), 7)).isEqualTo(LocalDate.of(2025, 5, 13));
+        assertThat(calendar.plusWorkingDays(LocalDate.of(2025, 12, 26), 7)).isEqualTo(LocalDate.of(2026, 1, 16));
+        assertThat(calendar.plusWorkingDays(LocalDate.of(2025, 5, 13), -7)).isEqualTo(LocalDate.of(2025, 4, 28));
+        assertThat(calendar.isWorkingDay(LocalDate.of(2025, 11, 1))).isTrue();
+        assertThat(calendar.nextWorkingDay(LocalDate.of(2025, 11, 2))).isEqualTo(LocalDate.of(2025, 11, 5));
+    }
+
+    @Test
+    @DisplayName("Описание восстанавливается из шаблона и сохраненных параметров")
+    void templates_renderStoredParameters() {
+        List<RuleResult> results = ruleSet.evaluate(
+                new RuleInput(ENTRY_DATE, "работа", "Тестландия", 120, false, false));
+        List<RuleTemplate> templates = ruleSet.templates();
+
+        assertThat(templates).extracting(RuleTemplate::key).doesNotHaveDuplicates();
+        for (int i = 0; i < results.size(); i++) {
+            RuleResult result = results.get(i);
+            RuleTemplate template = templates.get(i);
+            assertThat(result.templateKey()).isEqualTo(template.key());
+            assertThat(DescriptionTemplate.compile(template.description()).render(result.parameters()))
+                    .isEqualTo(result.description());
+        }
+        assertThat(results.get(0).parameters()).isNull();
+        assertThat(results.get(5).parameters()).isEqualTo(ENTRY_DATE.plusDays(120).toString());
+    }
+
+    @Test
+    @DisplayName("Хэш входных данных не зависит от регистра и меняется вместе с данными")
+    void inputHash_isDeterministic() {
+        String hash = ruleSet.inputHash(new RuleInput(ENTRY_DATE, "Работа", "Тестландия", 120, false, false));
+
+        assertThat(ruleSet.inputHash(new RuleInput(ENTRY_DATE, " работа ", "тестландия", 120, false, false)))
+                .isEqualTo(hash)
+                .hasSize(64);
+        assertThat(ruleSet.inputHash(new RuleInput(ENTRY_DATE, "работа", "тестландия", 121, false, false)))
+                .isNotEqualTo(hash);
+    }
+
+    @Test
+    @DisplayName("Измененный файл правил подменяет таблицу, некорректный — не применяется")
+    void reload_swapsValidRulesAndKeepsCurrentOnError(@TempDir Path dir) throws IOException {
+        String original = new ClassPathResource("rules/recommendation-rules.json")
+                .getContentAsString(StandardCharsets.UTF_8);
+        Path rules = Files.writeString(dir.resolve("rules.json"), original);
+        Path calendar = dir.resolve("calendar.json");
+        Files.copy(new ClassPathResource("rules/production-calendar.json").getInputStream(), calendar);
+        List<Object> events = new ArrayList<>();
+        RecommendationRuleEngine engine = new RecommendationRuleEngine(new ObjectMapper(),
+                new FileSystemResource(rules), new FileSystemResource(calendar), events::add);
+        RuleSet initial = engine.getRuleSet();
+
+        Files.writeString(rules, "{\"version\": 2, \"rules\": [{\"id\": \"EXIT\"}]}");
+        assertThat(engine.reload()).isFalse();
+        assertThat(engine.getRuleSet()).isSameAs(initial);
+        assertThat(events).isEmpty();
+
+        Files.writeString(rules, original.replace("\"version\": 1", "\"version\": 2"));
+        assertThat(engine.reload()).isTrue();
+        assertThat(engine.getRuleSet().getVersion()).isEqualTo(2);
+        assertThat(events).containsExactly(new RuleSetReloadedEvent(engine.getRuleSet()));
+    }
+
+    @Test
+    @DisplayName("Некорректное описание правила отклоняется при компиляции")
+    void compile_invalidDefinition_shouldFail() {
+        RuleSetDefinition definition = RuleSetDefinition.builder()
+                .rules(List.of(RuleDefinition.builder()
+                        .id("BROKEN")
+                        .title("Правило")
+                        .description("Срок до {unknown}")
+                        .offsetDays(1)
+                        .build()))
+                .build();
+
+        assertThatThrownBy(() -> RuleSetCompiler.compile(definition, ruleSet.getCalendar()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("BROKEN");
+    }
+}
@@ -0,0 +1,91 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RecommendationDTO;
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactRoadmapStoreTest {
+
+    private static final LocalDate CREATED = LocalDate.of(2025, 3, 1);
+    private static final UUID APPLICANT = UUID.randomUUID();
+    private static final UUID OTHER_APPLICANT = UUID.randomUUID();
+
+    private final RecommendationTemplateService templateService = Mockito.mock(RecommendationTemplateService.class);
+
+    private final CompactRoadmapStore store = new CompactRoadmapStore(
+            Mockito.mock(RoadmapRepository.class), templateService, 100, false);
+
+    CompactRoadmapStoreTest() {
+        Mockito.when(templateService.title(ArgumentMatchers.anyLong()))
+                .thenAnswer(invocation -> "Шаблон " + invocation.getArgument(0));
+        Mockito.when(templateService.description(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> "Срок " + invocation.getArgument(1));
+    }
+
+    @Test
+    @DisplayName("Упакованный путеводитель восстанавливается в тот же DTO")
+    void find_materializesStoredRoadmap() {
+        // id не подряд и порядок не с единицы — хранятся явными массивами
+        store.put(roadmap(10L, APPLICANT, recommendation(500L, 7L, null, 3),
+                recommendation(502L, 9L, "2025-06-29", 5)));
+
+        RoadmapDTO roadmap = store.find(10L, APPLICANT).orElseThrow();
+
+        assertThat(roadmap.getId()).isEqualTo(10L);
+        assertThat(roadmap.getCreatedDate()).isEqualTo(CREATED);
+        assertThat(roadmap.getRecommendations()).extracting(RecommendationDTO::getId).containsExactly(500L, 502L);
+        assertThat(roadmap.getRecommendations()).extracting(RecommendationDTO::getTitle)
+                .containsExactly("Шаблон 7", "Шаблон 9");
+        assertThat(roadmap.getRecommendations()).extracting(RecommendationDTO::getDescription)
+                .containsExactly("Срок null", "Срок 2025-06-29");
+        assertThat(roadmap.getRecommendations()).extracting(RecommendationDTO::getExecutionDate)
+                .containsExactly(CREATED.plusDays(3), CREATED.plusDays(5));
+        assertThat(roadmap.getRecommendations()).extracting(RecommendationDTO::getDisplayOrder)
+                .containsExactly(3, 5);
+    }
+
+    @Test
+    @DisplayName("Новый путеводитель заявителя вытесняет прежний")
+    void put_replacesPreviousRoadmapOfApplicant() {
+        store.put(roadmap(10L, APPLICANT, recommendation(500L, 7L, null, 1)));
+        store.put(roadmap(20L, APPLICANT, recommendation(550L, 7L, null, 1)));
+        store.put(roadmap(30L, OTHER_APPLICANT, recommendation(600L, 7L, null, 1)));
+
+        assertThat(store.find(10L, APPLICANT)).isEmpty();
+        assertThat(store.findActive(APPLICANT)).get().extracting(RoadmapDTO::getId).isEqualTo(20L);
+        assertThat(store.findActive(OTHER_APPLICANT)).get().extracting(RoadmapDTO::getId).isEqualTo(30L);
+        // путеводитель другого заявителя по id не выдается
+        assertThat(store.find(30L, APPLICANT)).isEmpty();
+    }
+
+    private static Recommendation recommendation(Long id, Long templateId, String parameters, int displayOrder) {
+        return Recommendation.builder()
+                .id(id)
+                .templateId(templateId)
+                .parameters(parameters)
+                .executionDate(CREATED.plusDays(displayOrder))
+                .displayOrder(displayOrder)
+                .build();
+    }
+
+    private static Roadmap roadmap(Long id, UUID applicantId, Recommendation... recommendations) {
+        return Roadmap.builder()
+                .id(id)
+                .applicantId(applicantId)
+                .createdDate(CREATED)
+                .recommendations(List.of(recommendations))
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.DueRecommendationDTO;
+import com.utmn.fms.roadmap.entity.Recommendation;
+import com.utmn.fms.roadmap.entity.RecommendationTemplate;
+import com.utmn.fms.roadmap.entity.Roadmap;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.DeadlineCounterRepository;
+import com.utmn.fms.roadmap.repository.RecommendationTemplateRepository;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({DeadlineDashboardService.class, DeadlineCounterRepository.class})
+class DeadlineDashboardServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DeadlineDashboardService dashboardService;
+
+    @Autowired
+    private RoadmapRepository roadmapRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private RecommendationTemplateRepository templateRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private RecommendationTemplateService templateService;
+
+    // остальные тесты откатываются; после параллельного теста зафиксированные строки удаляются
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM deadline_applicants");
+        jdbcTemplate.update("DELETE FROM deadline_counters");
+        roadmapRepository.deleteAll();
+        surveyRepository.deleteAll();
+        templateRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Новый путеводитель заявителя вычитает сроки замененного; пересчет дает те же счетчики")
+    void record_replacesPreviousRoadmapOfApplicant() {
+        Mockito.when(templateService.ruleId(ArgumentMatchers.anyLong())).thenReturn("EXIT");
+        Long templateId = entityManager.persist(template()).getId();
+        UUID applicant = UUID.randomUUID();
+
+        dashboardService.record(List.of(roadmap(applicant, templateId, TODAY.plusDays(5), TODAY.plusDays(10))));
+        Roadmap current = roadmap(applicant, templateId, TODAY.plusDays(6));
+        dashboardService.record(List.of(current));
+        // два путеводителя другого заявителя в одном пакете — действующий только последний
+        dashboardService.record(List.of(roadmap(UUID.randomUUID(), templateId, TODAY.plusDays(7)),
+                roadmap(UUID.randomUUID(), templateId, TODAY.plusDays(8))));
+
+        assertThat(dashboardService.summarize(30).getTotal()).isEqualTo(3);
+        assertThat(dashboardService.findDue(30, null, null, null, 10).getItems())
+                .extracting(DueRecommendationDTO::getExecutionDate)
+                .containsExactly(TODAY.plusDays(6), TODAY.plusDays(7), TODAY.plusDays(8));
+        assertThat(dashboardService.findDue(30, null, null, null, 10).getItems().get(0).getRoadmapId())
+                .isEqualTo(current.getId());
+
+        dashboardService.rebuild();
+
+        assertThat(dashboardService.summarize(30).getTotal()).isEqualTo(3);
+        assertThat(dashboardService.summarize(5).getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Параллельные сохранения путеводителей одного заявителя: счетчики совпадают с пересчетом")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void record_concurrentRoadmapsOfApplicant_countOnlyCurrent() throws Exception {
+        Mockito.when(templateService.ruleId(ArgumentMatchers.anyLong())).thenReturn("EXIT");
+        Long templateId = templateRepository.save(template()).getId();
+        UUID applicant = UUID.randomUUID();
+        Survey survey = surveyRepository.save(survey(applicant));
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 5; round++) {
+                CyclicBarrier start = new CyclicBarrier(threads);
+                List<Future<?>> saves = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    // у путеводителей разное число сроков: двойной учет или лишнее вычитание меняют сумму
+                    int deadlines = i + 1;
+                    saves.add(executor.submit(() -> {
+                        start.await();
+                        return transactionTemplate.execute(status -> {
+                            Roadmap roadmap = Roadmap.builder().survey(survey).applicantId(applicant).build();
+                            for (int day = 1; day <= deadlines; day++) {
+                                roadmap.getRecommendations().add(Recommendation.builder()
+                                        .roadmap(roadmap)
+                                        .templateId(templateId)
+                                        .executionDate(TODAY.plusDays(day))
+                                        .displayOrder(day)
+                                        .build());
+                            }
+                            dashboardService.record(List.of(roadmapRepository.save(roadmap)));
+                            return null;
+                        });
+                    }));
+                }
+                for (Future<?> save : saves) {
+                    save.get();
+                }
+
+                long recorded = dashboardService.summarize(30).getTotal();
+                long current = dashboardService.findDue(30, null, null, null, 10).getItems().size();
+                assertThat(recorded).isEqualTo(current);
+                transactionTemplate.executeWithoutResult(status -> dashboardService.rebuild());
+                assertThat(dashboardService.summarize(30).getTotal()).isEqualTo(recorded);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Roadmap roadmap(UUID applicantId, Long templateId, LocalDate... deadlines) {
+        Survey survey = entityManager.persist(survey(applicantId));
+        Roadmap roadmap = Roadmap.builder().survey(survey).applicantId(applicantId).build();
+        for (int i = 0; i < deadlines.length; i++) {
+            roadmap.getRecommendations().add(Recommendation.builder()
+                    .roadmap(roadmap)
+                    .templateId(templateId)
+                    .executionDate(deadlines[i])
+                    .displayOrder(i + 1)
+                    .build());
+        }
+        return entityManager.persist(roadmap);
+    }
+
+    private static Survey survey(UUID applicantId) {
+        return Survey.builder()
+                .fullName("Иванов Иван")
+                .citizenship("Тестландия")
+                .entryDate(TODAY)
+                .purposeOfStay("работа")
+                .durationOfStay(90)
+                .hasFingerprints(false)
+                .hasMedicalExam(false)
+                .applicantId(applicantId)
+                .build();
+    }
+
+    private static RecommendationTemplate template() {
+        return RecommendationTemplate.builder()
+                .ruleId("EXIT")
+                .locale("ru")
+                .title("Выезд")
+                .description("Выезд до {exitDate}")
+                .contentHash(UUID.randomUUID().toString())
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobDTO;
+import com.utmn.fms.roadmap.dto.RoadmapJobStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoadmapJobServiceTest {
+
+    private static final UUID APPLICANT = UUID.randomUUID();
+
+    private final RoadmapService roadmapService = Mockito.mock(RoadmapService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final RoadmapJobService jobService = new RoadmapJobService(roadmapService, 10, 1, Duration.ZERO);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        jobService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Сверх max-queued незавершенных заданий новые отклоняются; завершенные удаляет очистка")
+    void submit_rejectsAboveQueueLimit_andSweepEvictsFinished() throws Exception {
+        Mockito.when(roadmapService.buildCurrentRoadmap(ArgumentMatchers.any())).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(RoadmapDTO.builder().id(1L).build());
+        });
+
+        Optional<RoadmapJobDTO> first = jobService.submit(APPLICANT);
+        assertThat(first).isPresent();
+        assertThat(jobService.submit(APPLICANT)).isEmpty();
+
+        release.countDown();
+        RoadmapJobDTO done = jobService.await(APPLICANT, first.get().getJobId(), Duration.ofSeconds(5))
+                .orElseThrow().get();
+        assertThat(done.getStatus()).isEqualTo(RoadmapJobStatus.DONE);
+
+        // счетчик очереди уменьшается после завершения задания, чуть позже его результата
+        Optional<RoadmapJobDTO> second = Optional.empty();
+        for (int attempt = 0; attempt < 100 && second.isEmpty(); attempt++) {
+            Thread.sleep(10);
+            second = jobService.submit(APPLICANT);
+        }
+        assertThat(second).isPresent();
+
+        jobService.await(APPLICANT, second.get().getJobId(), Duration.ofSeconds(5)).orElseThrow().get();
+        Thread.sleep(5);
+        jobService.evictExpired();
+
+        assertThat(jobService.await(APPLICANT, first.get().getJobId(), Duration.ZERO)).isEmpty();
+        assertThat(jobService.await(APPLICANT, second.get().getJobId(), Duration.ZERO)).isEmpty();
+    }
+}
@@ -0,0 +1,109 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.RoadmapDTO;
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.RoadmapRepository;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class RoadmapServiceTest {
+
+    private static final UUID APPLICANT = UUID.randomUUID();
+
+    @Autowired
+    private RoadmapService roadmapService;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private RoadmapRepository roadmapRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM deadline_applicants");
+        jdbcTemplate.update("DELETE FROM deadline_counters");
+        roadmapRepository.deleteAll();
+        surveyRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Параллельные запросы формирования по одной анкете сохраняют один путеводитель и возвращают его")
+    void buildCurrentRoadmap_concurrentRequests_saveOneRoadmap() throws Exception {
+        surveyRepository.save(validSurvey(90));
+
+        int threads = 4;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Long> ids = new ArrayList<>();
+        try {
+            List<Future<RoadmapDTO>> builds = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                builds.add(executor.submit(() -> {
+                    start.await();
+                    return roadmapService.buildCurrentRoadmap(APPLICANT).orElseThrow();
+                }));
+            }
+            for (Future<RoadmapDTO> build : builds) {
+                ids.add(build.get().getId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(ids).containsOnly(ids.get(0));
+        assertThat(roadmapRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Путеводитель по той же анкете не переиспользуется, если действующим стал другой")
+    void buildRoadmap_roadmapNoLongerCurrent_buildsNewOne() {
+        Survey first = surveyRepository.save(validSurvey(90));
+        SurveyDTO firstDTO = SurveyDTO.builder().id(first.getId()).build();
+        Long firstRoadmap = roadmapService.buildRoadmap(firstDTO).getId();
+        assertThat(roadmapService.buildRoadmap(firstDTO).getId()).isEqualTo(firstRoadmap);
+
+        surveyRepository.save(validSurvey(180));
+        Long secondRoadmap = roadmapService.buildCurrentRoadmap(APPLICANT).orElseThrow().getId();
+
+        Long rebuilt = roadmapService.buildRoadmap(firstDTO).getId();
+        assertThat(rebuilt).isNotIn(firstRoadmap, secondRoadmap);
+        assertThat(roadmapService.findCurrentRoadmapId(APPLICANT)).contains(rebuilt);
+    }
+
+    private static Survey validSurvey(int durationOfStay) {
+        return Survey.builder()
+                .fullName("Иванов Иван")
+                .citizenship("Тестландия")
+                .entryDate(LocalDate.now())
+                .purposeOfStay("работа")
+                .durationOfStay(durationOfStay)
+                .hasFingerprints(false)
+                .hasMedicalExam(false)
+                .isDraft(false)
+                .isValid(true)
+                .applicantId(APPLICANT)
+                .build();
+    }
+}
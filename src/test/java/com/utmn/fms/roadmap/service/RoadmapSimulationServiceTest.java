@@ -0,0 +1,58 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationDTO;
+import com.utmn.fms.roadmap.dto.RoadmapSimulationRequestDTO;
+import com.utmn.fms.roadmap.dto.SimulationResultDTO;
+import com.utmn.fms.roadmap.rules.RecommendationRuleEngine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RoadmapSimulationServiceTest {
+
+    private static final LocalDate ENTRY_DATE = LocalDate.of(2025, 3, 1);
+
+    private final RecommendationRuleEngine ruleEngine = new RecommendationRuleEngine(new ObjectMapper(),
+            new ClassPathResource("rules/recommendation-rules.json"),
+            new ClassPathResource("rules/production-calendar.json"), event -> { });
+
+    private final RoadmapSimulationRequestDTO request = RoadmapSimulationRequestDTO.builder()
+            .entryDates(List.of(ENTRY_DATE, ENTRY_DATE.plusDays(1)))
+            .durationsOfStay(List.of(90, 120))
+            .purposesOfStay(List.of("работа", "учеба"))
+            .citizenships(List.of("Тестландия"))
+            .hasFingerprints(List.of(false, true))
+            .hasMedicalExam(List.of(true))
+            .build();
+
+    @Test
+    @DisplayName("Каждое сочетание сетки вычисляется по правилам, порядок сочетаний детерминирован")
+    void simulate_evaluatesEveryCombination() {
+        RoadmapSimulationDTO simulation = new RoadmapSimulationService(ruleEngine, 100).simulate(request);
+
+        assertThat(simulation.getCombinations()).isEqualTo(16);
+        assertThat(simulation.getResults()).hasSize(16);
+        assertThat(simulation.getRules()).containsKeys("MIGRATION_REGISTRATION", "EXIT");
+        // первое измерение меняется быстрее всех
+        assertThat(simulation.getResults()).extracting(SimulationResultDTO::getEntryDate)
+                .startsWith(ENTRY_DATE, ENTRY_DATE.plusDays(1), ENTRY_DATE);
+
+        SimulationResultDTO first = simulation.getResults().get(0);
+        assertThat(first.getDeadlines()).containsOnlyKeys("MIGRATION_REGISTRATION", "FINGERPRINTS", "WORK_PATENT", "EXIT");
+        assertThat(first.getDeadlines()).containsEntry("MIGRATION_REGISTRATION", LocalDate.of(2025, 3, 11));
+    }
+
+    @Test
+    @DisplayName("Сетка больше допустимой отклоняется до вычислений")
+    void simulate_tooManyCombinations_shouldFail() {
+        assertThatThrownBy(() -> new RoadmapSimulationService(ruleEngine, 15).simulate(request))
+                .isInstanceOf(SimulationLimitExceededException.class);
+    }
+}
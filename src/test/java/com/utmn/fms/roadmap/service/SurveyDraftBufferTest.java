@@ -0,0 +1,119 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SurveyDraftBufferTest {
+
+    private static final UUID APPLICANT = UUID.randomUUID();
+
+    private final SurveyRepository surveyRepository = Mockito.mock(SurveyRepository.class);
+
+    private final SurveyDraftBuffer buffer = new SurveyDraftBuffer(
+            surveyRepository, new TransactionTemplate(new NoOpTransactionManager()), 100);
+
+    @Test
+    @DisplayName("Повторные сохранения одной анкеты записываются в БД один раз, последней версией")
+    void flush_coalescesRepeatedSaves() {
+        Survey survey = Survey.builder().id(1L).applicantId(APPLICANT).fullName("Старое имя").isDraft(true).isValid(false).build();
+        Mockito.when(surveyRepository.findAllById(Set.of(1L))).thenReturn(List.of(survey));
+
+        buffer.offer(APPLICANT, SurveyDTO.builder().id(1L).fullName("Иванов").durationOfStay(30).build());
+        buffer.offer(APPLICANT, SurveyDTO.builder().id(1L).fullName("Иванов Иван").durationOfStay(90).build());
+        // черновик принадлежит сохранившему его заявителю
+        assertThat(buffer.offer(UUID.randomUUID(), SurveyDTO.builder().id(1L).fullName("Петров").build())).isFalse();
+        assertThat(buffer.latestPending(APPLICANT)).get().extracting(SurveyDTO::getFullName).isEqualTo("Иванов Иван");
+
+        buffer.flush();
+
+        Mockito.verify(surveyRepository, Mockito.times(1)).findAllById(Set.of(1L));
+        assertThat(survey.getFullName()).isEqualTo("Иванов Иван");
+        assertThat(survey.getDurationOfStay()).isEqualTo(90);
+        assertThat(buffer.latestPending(APPLICANT)).isEmpty();
+
+        buffer.flush();
+        Mockito.verifyNoMoreInteractions(surveyRepository);
+    }
+
+    @Test
+    @DisplayName("Черновик, отклоненный БД, удаляется из буфера и не мешает записи остальных")
+    void flush_isolatesDraftRejectedByDatabase() {
+        Survey good = Survey.builder().id(1L).applicantId(APPLICANT).isDraft(true).isValid(false).build();
+        Mockito.when(surveyRepository.findAllById(Set.of(1L, 2L)))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+        Mockito.when(surveyRepository.findAllById(Set.of(1L))).thenReturn(List.of(good));
+        Mockito.when(surveyRepository.findAllById(Set.of(2L)))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        buffer.offer(APPLICANT, SurveyDTO.builder().id(1L).fullName("Иванов").build());
+        buffer.offer(APPLICANT, SurveyDTO.builder().id(2L).fullName("x".repeat(1000)).build());
+        buffer.flush();
+
+        assertThat(good.getFullName()).isEqualTo("Иванов");
+        assertThat(buffer.isPending(APPLICANT, 1L)).isFalse();
+        assertThat(buffer.isPending(APPLICANT, 2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Полный буфер, который не удалось записать, не растет: черновик пишется сразу")
+    void offer_whenFullAndFlushFails_writesDirectly() {
+        SurveyDraftBuffer full = new SurveyDraftBuffer(
+                surveyRepository, new TransactionTemplate(new NoOpTransactionManager()), 1);
+        Survey survey = Survey.builder().id(2L).applicantId(APPLICANT).isDraft(true).isValid(false).build();
+        Mockito.when(surveyRepository.findAllById(Set.of(1L)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        Mockito.when(surveyRepository.findAllById(Set.of(2L))).thenReturn(List.of(survey));
+
+        full.offer(APPLICANT, SurveyDTO.builder().id(1L).fullName("Иванов").build());
+        assertThat(full.offer(APPLICANT, SurveyDTO.builder().id(2L).fullName("Петров").build())).isTrue();
+
+        assertThat(survey.getFullName()).isEqualTo("Петров");
+        assertThat(full.isPending(APPLICANT, 1L)).isTrue();
+        assertThat(full.isPending(APPLICANT, 2L)).isFalse();
+        assertThat(full.latestPending(APPLICANT)).isEmpty();
+
+        // БД недоступна и для прямой записи — ошибка возвращается вызывающему, буфер не растет
+        Mockito.when(surveyRepository.findAllById(Set.of(3L)))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+        assertThatThrownBy(() -> full.offer(APPLICANT, SurveyDTO.builder().id(3L).build()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(full.isPending(APPLICANT, 3L)).isFalse();
+    }
+
+    private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
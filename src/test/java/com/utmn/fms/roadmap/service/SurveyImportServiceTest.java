@@ -0,0 +1,65 @@
+package com.utmn.fms.roadmap.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.utmn.fms.roadmap.dto.SurveyImportReportDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SurveyImportServiceTest {
+
+    private final SurveyService surveyService = Mockito.mock(SurveyService.class);
+    private final SurveyRepository surveyRepository = Mockito.mock(SurveyRepository.class);
+
+    private final SurveyImportService importService = new SurveyImportService(surveyService, surveyRepository,
+            new TransactionTemplate(Mockito.mock(PlatformTransactionManager.class)),
+            JsonMapper.builder().findAndAddModules().build(),
+            Validation.buildDefaultValidatorFactory().getValidator(), 100, 100);
+
+    @Test
+    @DisplayName("Столбец applicantId привязывает анкету к заявителю; пустой или некорректный ключ отклоняет строку")
+    void importSurveys_assignsApplicantFromColumn() throws Exception {
+        Mockito.when(surveyService.convertToEntity(ArgumentMatchers.any())).thenCallRealMethod();
+        UUID applicant = UUID.randomUUID();
+        String csv = """
+                applicantId,fullName,citizenship,entryDate,purposeOfStay,durationOfStay,hasFingerprints,hasMedicalExam
+                %s,Иванов Иван,Тестландия,2025-01-10,работа,90,true,false
+                ,Петров Петр,Тестландия,2025-01-10,учеба,30,false,false
+                не-ключ,Сидоров Сидор,Тестландия,2025-01-10,работа,90,true,true
+                """.formatted(applicant);
+
+        SurveyImportReportDTO report = importService.importSurveys(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), SurveyImportFormat.CSV);
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).hasSize(2);
+        // без ключа анкета была бы недоступна никому
+        assertThat(report.getErrors().get(0).getLine()).isEqualTo(3);
+        assertThat(report.getErrors().get(0).getErrors())
+                .containsEntry("applicantId", "Заявитель обязателен для заполнения");
+        assertThat(report.getErrors().get(1).getLine()).isEqualTo(4);
+        assertThat(report.getErrors().get(1).getErrors()).containsEntry("applicantId", "Некорректное значение");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Survey>> saved = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(surveyRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).singleElement().satisfies(survey -> {
+            assertThat(survey.getApplicantId()).isEqualTo(applicant);
+            assertThat(survey.getIsDraft()).isTrue();
+        });
+    }
+}
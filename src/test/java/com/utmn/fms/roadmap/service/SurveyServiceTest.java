@@ -0,0 +1,145 @@
+package com.utmn.fms.roadmap.service;
+
+import com.utmn.fms.roadmap.dto.SurveyDTO;
+import com.utmn.fms.roadmap.entity.Survey;
+import com.utmn.fms.roadmap.repository.SurveyRepository;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({SurveyService.class, SurveyDraftBuffer.class})
+// подтверждения фиксируются в собственных транзакциях, как в приложении
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SurveyServiceTest {
+
+    private static final UUID APPLICANT = UUID.randomUUID();
+
+    @Autowired
+    private SurveyService surveyService;
+
+    @MockitoSpyBean
+    private SurveyRepository surveyRepository;
+
+    @AfterEach
+    void cleanUp() {
+        surveyRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Параллельные подтверждения одной анкеты получают номера N+1 и N+2 либо одно завершается конфликтом")
+    void createNewVersion_concurrentConfirms_getDistinctVersions() throws Exception {
+        Long draftId = surveyRepository.save(draft()).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            int last = 1;
+            for (int round = 0; round < 5; round++) {
+                CyclicBarrier start = new CyclicBarrier(2);
+                List<Future<SurveyDTO>> confirms = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    confirms.add(executor.submit(() -> {
+                        start.await();
+                        return surveyService.createNewVersion(APPLICANT, draftId);
+                    }));
+                }
+
+                List<Integer> versions = new ArrayList<>();
+                int conflicts = 0;
+                for (Future<SurveyDTO> confirm : confirms) {
+                    try {
+                        versions.add(confirm.get().getVersion());
+                    } catch (ExecutionException e) {
+                        assertThat(e.getCause()).isInstanceOf(OptimisticLockingFailureException.class);
+                        conflicts++;
+                    }
+                }
+
+                if (conflicts == 0) {
+                    assertThat(versions).containsExactlyInAnyOrder(last + 1, last + 2);
+                } else {
+                    assertThat(conflicts).isEqualTo(1);
+                    assertThat(versions).containsExactly(last + 1);
+                }
+                last += versions.size();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(surveyRepository.findMaxVersionByDraftId(draftId)).isEqualTo(
+                (int) surveyRepository.findAll().stream().filter(survey -> !survey.getIsDraft()).count() + 1);
+    }
+
+    @Test
+    @DisplayName("Нарушение ограничения номера версии повторяется, пока не исчерпаны попытки")
+    void createNewVersion_versionConstraintViolation_isRetried() {
+        Long draftId = surveyRepository.save(draft()).getId();
+        Mockito.clearInvocations(surveyRepository);
+        // H2 сообщает имя индекса ограничения со схемой
+        Mockito.doThrow(violation("PUBLIC.UK_SURVEY_DRAFT_VERSION_INDEX_B"))
+                .when(surveyRepository).save(ArgumentMatchers.any(Survey.class));
+
+        assertThatThrownBy(() -> surveyService.createNewVersion(APPLICANT, draftId))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        Mockito.verify(surveyRepository, Mockito.times(3)).save(ArgumentMatchers.any(Survey.class));
+    }
+
+    @Test
+    @DisplayName("Нарушение другого ограничения не повторяется и возвращается вызывающему")
+    void createNewVersion_otherConstraintViolation_isNotRetried() {
+        Long draftId = surveyRepository.save(draft()).getId();
+        // имя другого ограничения, хотя сообщение упоминает ограничение версии
+        DataIntegrityViolationException violation = violation("PUBLIC.UK_SURVEY_OTHER_INDEX_1");
+        Mockito.clearInvocations(surveyRepository);
+        Mockito.doThrow(violation).when(surveyRepository).save(ArgumentMatchers.any(Survey.class));
+
+        assertThatThrownBy(() -> surveyService.createNewVersion(APPLICANT, draftId))
+                .isSameAs(violation);
+        Mockito.verify(surveyRepository, Mockito.times(1)).save(ArgumentMatchers.any(Survey.class));
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        SQLException cause = new SQLException("Unique index or primary key violation: uk_survey_draft_version", "23505");
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", cause, constraintName));
+    }
+
+    private static Survey draft() {
+        return Survey.builder()
+                .fullName("Иванов Иван")
+                .citizenship("Тестландия")
+                .entryDate(LocalDate.now())
+                .purposeOfStay("работа")
+                .durationOfStay(90)
+                .hasFingerprints(false)
+                .hasMedicalExam(false)
+                .applicantId(APPLICANT)
+                .build();
+    }
+}